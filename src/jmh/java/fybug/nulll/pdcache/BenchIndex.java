@@ -0,0 +1,22 @@
+package fybug.nulll.pdcache;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 基准测试中每个线程独立的键下标
+ * <p>
+ * 不同线程从不同位置开始轮询键，避免所有线程同时访问同一个键
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Thread )
+public
+class BenchIndex {
+    private int i = (int) Thread.currentThread().getId() * 131;
+
+    /** 下一个键的下标 */
+    public
+    int next() { return i++ & (BenchParam.SIZE - 1); }
+}
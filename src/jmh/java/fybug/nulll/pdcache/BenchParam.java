@@ -0,0 +1,64 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+
+import fybug.nulll.pdconcurrent.SyLock;
+import lombok.experimental.UtilityClass;
+
+/**
+ * 基准测试通用参数
+ * <p>
+ * 并发管理参数：RW、Obj、Re<br/>
+ * 缓存方式参数：Soft、Weak、Strong
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@UtilityClass
+public
+class BenchParam {
+    /** 数据数量，需要为 2 的幂 */
+    public final int SIZE = 1024;
+
+    /** 生成对应的并发管理 */
+    @NotNull
+    public
+    SyLock lock(@NotNull String name) {
+        switch ( name ) {
+            case "RW":
+                return SyLock.newRWLock();
+            case "Re":
+                return SyLock.newReLock();
+            default:
+                return SyLock.newObjLock();
+        }
+    }
+
+    /** 获取对应的缓存方式 */
+    @NotNull
+    public
+    Class<? extends Reference> refernce(@NotNull String name) {
+        switch ( name ) {
+            case "Weak":
+                return WeakReference.class;
+            case "Strong":
+                return StrongReference.class;
+            default:
+                return SoftReference.class;
+        }
+    }
+
+    /** 生成键 */
+    @NotNull
+    public
+    Integer[] keys() {
+        var keys = new Integer[SIZE];
+        for ( int i = 0; i < SIZE; i++ )
+            keys[i] = i;
+        return keys;
+    }
+}
@@ -0,0 +1,110 @@
+package fybug.nulll.pdcache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.memory.Cache;
+import fybug.nulll.pdcache.memory.MapCache;
+import fybug.nulll.pdcache.supplier.SCache;
+import fybug.nulll.pdcache.supplier.SMapCache;
+
+/**
+ * 命中路径的分配测试
+ * <p>
+ * 需配合 {@code -prof gc} 运行，命中时 {@code gc.alloc.rate.norm} 应为 0 B/op，例：
+ * <pre>gradle jmh -PjmhArgs="HitBench -prof gc"</pre>
+ * 数量限制与统计会在命中时记录访问，一并覆盖
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class HitBench {
+    @Param( {"Soft", "Weak", "Strong"} ) public String refernce;
+    /** 是否开启数量限制与统计 */
+    @Param( {"false", "true"} ) public boolean record;
+
+    private Cache<Object> cache;
+    private SCache<Object> scache;
+    private MapCache<Integer, Object> mapCache;
+    private SMapCache<Integer, Object> smapCache;
+    private Integer[] keys;
+    /** 缓存的数据，保持强引用避免被回收 */
+    private Object[] values;
+
+    @Setup
+    public
+    void setUp() throws Exception {
+        keys = BenchParam.keys();
+        values = new Object[keys.length];
+        for ( int i = 0; i < keys.length; i++ )
+            values[i] = new Object();
+
+        var cb = Cache.build(Object.class).refernce(BenchParam.refernce(refernce));
+        var sb = SCache.build(Object.class).createdata(() -> values[0])
+                       .refernce(BenchParam.refernce(refernce));
+        var mb = MapCache.build(Integer.class, Object.class).refernce(BenchParam.refernce(refernce));
+        var smb = SMapCache.build(Integer.class, Object.class).createdata(k -> values[k])
+                           .refernce(BenchParam.refernce(refernce));
+        if (record) {
+            cb.recordStats();
+            sb.recordStats();
+            mb.maximumSize(BenchParam.SIZE * 2).refernce(BenchParam.refernce(refernce)).recordStats();
+            smb.maximumSize(BenchParam.SIZE * 2).refernce(BenchParam.refernce(refernce)).recordStats();
+        }
+
+        cache = cb.build();
+        cache.set(values[0]);
+        scache = sb.build();
+        scache.get();
+        mapCache = mb.build();
+        smapCache = smb.build();
+        for ( int i = 0; i < keys.length; i++ ) {
+            mapCache.put(keys[i], values[i]);
+            smapCache.get(keys[i]);
+        }
+    }
+
+    @TearDown
+    public
+    void tearDown() {
+        cache.close();
+        scache.close();
+        mapCache.close();
+        smapCache.close();
+    }
+
+    @Benchmark
+    public
+    Object cache() throws Exception { return cache.get(); }
+
+    @Benchmark
+    public
+    Object scache() throws Exception { return scache.get(); }
+
+    @Benchmark
+    public
+    Object mapCache(BenchIndex index) throws Exception { return mapCache.get(keys[index.next()]); }
+
+    @Benchmark
+    public
+    Object smapCache(BenchIndex index) throws Exception { return smapCache.get(keys[index.next()]); }
+}
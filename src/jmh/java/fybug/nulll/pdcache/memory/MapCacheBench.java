@@ -0,0 +1,85 @@
+package fybug.nulll.pdcache.memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.BenchIndex;
+import fybug.nulll.pdcache.BenchParam;
+
+/**
+ * {@link MapCache} 基准测试
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class MapCacheBench {
+    @Param( {"RW", "Obj", "Re"} ) public String lock;
+    @Param( {"Soft", "Weak"} ) public String refernce;
+
+    private MapCache<Integer, Object> cache;
+    private Integer[] keys;
+    /** 缓存的数据，保持强引用避免被回收 */
+    private Object[] values;
+
+    @Setup
+    public
+    void setUp() throws Exception {
+        cache = MapCache.build(Integer.class, Object.class)
+                        .refernce(BenchParam.refernce(refernce))
+                        .lockBy(BenchParam.lock(lock))
+                        .build();
+        keys = BenchParam.keys();
+        values = new Object[keys.length];
+        for ( int i = 0; i < keys.length; i++ )
+            cache.put(keys[i], values[i] = new Object());
+    }
+
+    @TearDown
+    public
+    void tearDown() { cache.close(); }
+
+    @Benchmark
+    public
+    Object hit(BenchIndex index) throws Exception { return cache.get(keys[index.next()]); }
+
+    /** 读取不存在的键 */
+    @Benchmark
+    public
+    Object miss(BenchIndex index) throws Exception { return cache.get(-1 - index.next()); }
+
+    /** 覆盖已有的键 */
+    @Benchmark
+    public
+    Object put(BenchIndex index) throws Exception {
+        var i = index.next();
+        return cache.put(keys[i], values[i]);
+    }
+
+    /** 包含一次放入 */
+    @Benchmark
+    public
+    void remove(BenchIndex index) throws Exception {
+        var i = index.next();
+        cache.put(keys[i], values[i]);
+        cache.remove(keys[i]);
+    }
+}
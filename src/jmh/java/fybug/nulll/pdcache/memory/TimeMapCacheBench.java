@@ -0,0 +1,101 @@
+package fybug.nulll.pdcache.memory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.BenchIndex;
+import fybug.nulll.pdcache.BenchParam;
+
+/**
+ * {@link TimeMapCache} 基准测试
+ * <p>
+ * 数据基于时间控制，没有缓存方式参数，使用分片数量参数代替
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class TimeMapCacheBench {
+    @Param( {"RW", "Obj", "Re"} ) public String lock;
+    @Param( {"1", "16"} ) public int shards;
+
+    private TimeMapCache<Integer, Object> cache;
+    private Integer[] keys;
+    private Object[] values;
+
+    @Setup
+    public
+    void setUp() {
+        cache = TimeMapCache.build(Integer.class, Object.class)
+                            .lockBy(BenchParam.lock(lock))
+                            .shards(shards)
+                            .dataTime(TimeUnit.HOURS.toMillis(1))
+                            .scarrentime(0)
+                            .build();
+        keys = BenchParam.keys();
+        values = new Object[keys.length];
+        for ( int i = 0; i < keys.length; i++ )
+            cache.putData(keys[i], values[i] = new Object());
+    }
+
+    @TearDown
+    public
+    void tearDown() { cache.closeTimeTaskAndClear(); }
+
+    @Benchmark
+    public
+    Object hit(BenchIndex index) { return cache.getData(keys[index.next()]); }
+
+    /** 读取不存在的键 */
+    @Benchmark
+    public
+    Object miss(BenchIndex index) { return cache.getData(-1 - index.next()); }
+
+    /** 覆盖已有的键 */
+    @Benchmark
+    public
+    void put(BenchIndex index) {
+        var i = index.next();
+        cache.putData(keys[i], values[i]);
+    }
+
+    /** 包含一次放入 */
+    @Benchmark
+    public
+    void remove(BenchIndex index) {
+        var i = index.next();
+        cache.putData(keys[i], values[i]);
+        cache.removeData(keys[i]);
+    }
+
+    /**
+     * 放入立即过期的数据并清理
+     * <p>
+     * 使用不与常驻数据冲突的键，过期数据在时间轮推进时批量移除
+     */
+    @Benchmark
+    public
+    void expiry(BenchIndex index) {
+        var i = index.next();
+        cache.putData(-1 - i, values[i], 0);
+        cache.trimData();
+    }
+}
@@ -0,0 +1,81 @@
+package fybug.nulll.pdcache.supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.BenchIndex;
+import fybug.nulll.pdcache.BenchParam;
+import fybug.nulll.pdconcurrent.SyLock;
+
+/**
+ * {@link LockMapCache} 基准测试
+ * <p>
+ * 并发管理参数为缓存中生成的锁的类型，缓存自身固定使用 {@link fybug.nulll.pdconcurrent.ObjLock}
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class LockMapCacheBench {
+    @Param( {"RW", "Obj", "Re"} ) public String lock;
+    @Param( {"Soft", "Weak"} ) public String refernce;
+
+    private LockMapCache<Integer> cache;
+    private Integer[] keys;
+    /** 生成的锁，保持强引用避免被回收 */
+    private SyLock[] locks;
+
+    @Setup
+    public
+    void setUp() throws Exception {
+        cache = LockMapCache.build(Integer.class)
+                            .refernce(BenchParam.refernce(refernce))
+                            .sylock(() -> BenchParam.lock(lock))
+                            .build();
+        keys = BenchParam.keys();
+        locks = new SyLock[keys.length];
+        for ( int i = 0; i < keys.length; i++ )
+            locks[i] = cache.get(keys[i]);
+    }
+
+    @TearDown
+    public
+    void tearDown() { cache.close(); }
+
+    @Benchmark
+    public
+    Object hit(BenchIndex index) throws Exception { return cache.get(keys[index.next()]); }
+
+    /** 包含一次移除，未命中时重新生成锁 */
+    @Benchmark
+    public
+    Object miss(BenchIndex index) throws Exception {
+        var i = index.next();
+        cache.remove(keys[i]);
+        return locks[i] = cache.get(keys[i]);
+    }
+
+    /** 获取锁并在锁中运行 */
+    @Benchmark
+    public
+    Object lock(BenchIndex index) throws Exception
+    { return cache.get(keys[index.next()]).write(() -> index); }
+}
@@ -0,0 +1,67 @@
+package fybug.nulll.pdcache.supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.BenchParam;
+
+/**
+ * {@link SCache} 基准测试
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class SCacheBench {
+    @Param( {"RW", "Obj", "Re"} ) public String lock;
+    @Param( {"Soft", "Weak"} ) public String refernce;
+
+    private SCache<Object> cache;
+    /** 缓存的数据，保持强引用避免被回收 */
+    private final Object value = new Object();
+
+    @Setup
+    public
+    void setUp() throws Exception {
+        cache = SCache.build(Object.class)
+                      .createdata(() -> value)
+                      .refernce(BenchParam.refernce(refernce))
+                      .lockBy(BenchParam.lock(lock))
+                      .build();
+        cache.get();
+    }
+
+    @Benchmark
+    public
+    Object hit() throws Exception { return cache.get(); }
+
+    /** 包含一次清空，未命中时重新生成 */
+    @Benchmark
+    public
+    Object miss() throws Exception {
+        cache.clear();
+        return cache.get();
+    }
+
+    /** 清空已生成的数据 */
+    @Benchmark
+    public
+    void remove() { cache.clear(); }
+}
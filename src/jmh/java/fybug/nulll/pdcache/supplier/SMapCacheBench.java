@@ -0,0 +1,85 @@
+package fybug.nulll.pdcache.supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.BenchIndex;
+import fybug.nulll.pdcache.BenchParam;
+
+/**
+ * {@link SMapCache} 基准测试
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public
+class SMapCacheBench {
+    @Param( {"RW", "Obj", "Re"} ) public String lock;
+    @Param( {"Soft", "Weak"} ) public String refernce;
+
+    private SMapCache<Integer, Object> cache;
+    private Integer[] keys;
+    /** 生成的数据，保持强引用避免被回收 */
+    private Object[] values;
+
+    @Setup
+    public
+    void setUp() throws Exception {
+        keys = BenchParam.keys();
+        values = new Object[keys.length];
+        for ( int i = 0; i < keys.length; i++ )
+            values[i] = new Object();
+
+        cache = SMapCache.build(Integer.class, Object.class)
+                         .createdata(k -> values[k])
+                         .refernce(BenchParam.refernce(refernce))
+                         .lockBy(BenchParam.lock(lock))
+                         .build();
+        for ( var k : keys )
+            cache.get(k);
+    }
+
+    @TearDown
+    public
+    void tearDown() { cache.close(); }
+
+    @Benchmark
+    public
+    Object hit(BenchIndex index) throws Exception { return cache.get(keys[index.next()]); }
+
+    /** 包含一次移除，未命中时重新生成 */
+    @Benchmark
+    public
+    Object miss(BenchIndex index) throws Exception {
+        var k = keys[index.next()];
+        cache.remove(k);
+        return cache.get(k);
+    }
+
+    /** 包含一次生成 */
+    @Benchmark
+    public
+    void remove(BenchIndex index) throws Exception {
+        var k = keys[index.next()];
+        cache.get(k);
+        cache.remove(k);
+    }
+}
@@ -1,27 +1,529 @@
 package fybug.nulll.pdcache;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.ref.Cleaner;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.experimental.UtilityClass;
 
 /**
- * emmmm....就个工具类
+ * <h2>共享回收引擎.</h2>
+ * <p>
+ * 所有缓存的引用都注册在同一个 {@link ReferenceQueue} 中，由少量的排空线程统一处理<br/>
+ * 排空线程每次从队列中批量取出被回收的引用，按所属的 {@link Recycler} 分组后交由缓存一次性清理，
+ * 避免每个数据占用一个 {@link Cleaner} 线程。
+ * <br/><br/>
+ * 排空线程数量可通过 {@link #setThreads(int)} 或系统属性 {@code pdcache.gc.threads} 指定，默认为 1<br/>
+ * 单批处理数量可通过 {@link #setBatchSize(int)} 指定，默认为 64<br/>
+ * 运行状况可通过 {@link #stats()} 获取，回收方法抛出的异常会交由线程的 {@link Thread.UncaughtExceptionHandler} 处理<br/>
+ * 引用的生成方式由 {@link ReferenceStrategy} 决定
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.6
  * @since PDCache 0.0.1
  */
 @UtilityClass
 public
 class CacheGcThrea {
+    /** 共享回收队列 */
+    private final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+    /**
+     * 持有回收方法的引用
+     * <p>
+     * 只有带回收方法的引用会放入该区域，防止引用对象先于数据被回收
+     */
+    private final Set<Recyclable> TRACKED = ConcurrentHashMap.newKeySet();
+
+    /** 排空线程数量 */
+    private volatile int threads = Math.max(1, Integer.getInteger("pdcache.gc.threads", 1));
+    /** 单批处理数量 */
+    private volatile int batchSize = 64;
+    /** 当前运行的排空线程数量 */
+    private final AtomicInteger running = new AtomicInteger();
+    /** 排空线程编号 */
+    private final AtomicInteger threadId = new AtomicInteger();
+
+    /** 已处理的引用数量 */
+    private final LongAdder drained = new LongAdder();
+    /** 已注册还未被处理的引用数量，注册时增加，排空时减少 */
+    private final LongAdder pending = new LongAdder();
+    /** 已处理的批次 */
+    private final LongAdder batches = new LongAdder();
+    /** 处理耗时总和（纳秒） */
+    private final LongAdder drainNanos = new LongAdder();
+    /** 单批最大耗时（纳秒） */
+    private final AtomicLong maxDrainNanos = new AtomicLong();
+    /** 最近一批的数量 */
+    private volatile int lastBatch = 0;
+    /** 单批最大数量 */
+    private final AtomicInteger maxBatch = new AtomicInteger();
+    /** 回收失败的次数 */
+    private final LongAdder failures = new LongAdder();
+
+    //----------------------------------------------------------------------------------------------
+
     /**
      * 为指定对象绑定回收接口
+     * <p>
+     * 对象被回收后会在排空线程中执行 {@code run}
      *
      * @see Cleaner#register(Object, Runnable)
      */
     @NotNull
     public
     Cleaner.Cleanable binClean(@NotNull Object obj, @NotNull Runnable run)
-    { return Cleaner.create().register(obj, run); }
-}
\ No newline at end of file
+    { return track(new TrackRef(obj, RUNNER, null, null, run)); }
+
+    /**
+     * 生成注册于回收队列的缓存引用
+     * <p>
+     * 每次调用都会查找引用类型对应的 {@link ReferenceStrategy}，缓存应在构造时获取一次缓存方式后直接使用
+     *
+     * @param refc  引用类型
+     * @param v     数据
+     * @param owner 被回收后负责清理的缓存
+     * @param key   数据对应的键
+     * @param clean 数据的回收方法，为空则不执行
+     *
+     * @return 回收记录，缓存中应存放 {@link Recyclable#target()}
+     *
+     * @see ReferenceStrategy#of(Class)
+     */
+    @NotNull
+    public
+    <V> Recyclable bind(@NotNull Class<? extends Reference> refc, @Nullable V v,
+                        @NotNull Recycler owner, @Nullable Object key, @Nullable Runnable clean)
+            throws Exception
+    { return ReferenceStrategy.of(refc).bind(v, owner, key, clean); }
+
+    /**
+     * 注册回收记录并启动排空线程
+     * <p>
+     * 仅在有回收方法时才会被持有，普通数据不产生额外的注册
+     *
+     * @since 0.0.3
+     */
+    @NotNull
+    <R extends Recyclable> R register(@NotNull R rec, @Nullable Runnable clean) {
+        if (clean != null)
+            TRACKED.add(rec);
+        pending.increment();
+        startThreads();
+        return rec;
+    }
+
+    // 持有并启动排空线程
+    @NotNull
+    <R extends Recyclable> R track(@NotNull R rec) {
+        TRACKED.add(rec);
+        pending.increment();
+        startThreads();
+        return rec;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 设置排空线程数量
+     * <p>
+     * 减少时多余的线程会在空闲后退出
+     */
+    public
+    void setThreads(int threads) {
+        CacheGcThrea.threads = Math.max(1, threads);
+        startThreads();
+    }
+
+    /** 设置单批处理数量 */
+    public
+    void setBatchSize(int batchSize) { CacheGcThrea.batchSize = Math.max(1, batchSize); }
+
+    /** 获取当前运行状况 */
+    @NotNull
+    public
+    GcStats stats() {
+        long n = batches.sum();
+        long nanos = drainNanos.sum();
+        return new GcStats(running.get(), TRACKED.size(), drained.sum(), n, lastBatch, maxBatch.get(),
+                           n == 0 ? 0 : nanos / n, maxDrainNanos.get(), failures.sum(), pending.sum());
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 补足排空线程
+    private
+    void startThreads() {
+        int n;
+        while( (n = running.get()) < threads ){
+            if (!running.compareAndSet(n, n + 1))
+                continue;
+            var t = new Thread(CacheGcThrea::drain, "PDCache-gc-" + threadId.incrementAndGet());
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    // 排空线程
+    private
+    void drain() {
+        var batch = new ArrayList<Recyclable>();
+        while( true ){
+            /* 多余的线程退出 */
+            int n = running.get();
+            if (n > threads) {
+                if (running.compareAndSet(n, n - 1))
+                    return;
+                continue;
+            }
+
+            Reference<?> r;
+            try {
+                r = QUEUE.remove(1000);
+            } catch ( InterruptedException e ) {
+                running.decrementAndGet();
+                return;
+            }
+            if (r == null)
+                continue;
+
+            var start = System.nanoTime();
+            // 批量取出
+            var size = batchSize;
+            do{
+                if (r instanceof Recyclable)
+                    batch.add((Recyclable) r);
+            }while( batch.size() < size && (r = QUEUE.poll()) != null );
+
+            recycle(batch);
+            record(batch.size(), System.nanoTime() - start);
+            batch.clear();
+        }
+    }
+
+    // 按缓存分组清理
+    private
+    void recycle(@NotNull List<Recyclable> batch) {
+        Map<Recycler, List<Recyclable>> group = new IdentityHashMap<>();
+        for ( var r : batch )
+            group.computeIfAbsent(r.recycler(), k -> new ArrayList<>()).add(r);
+
+        group.forEach((owner, refs) -> {
+            try {
+                owner.recycle(refs);
+            } catch ( Throwable e ) {
+                failures.increment();
+                report(e);
+            } finally {
+                // 失败的回收方法不再保留
+                refs.forEach(TRACKED::remove);
+            }
+        });
+    }
+
+    /**
+     * 执行一批记录的回收方法
+     * <p>
+     * 由缓存在释放锁后调用，回收方法是使用者的代码，不能在缓存的锁中运行<br/>
+     * 失败的回收方法与排空线程中的失败一同记录并交由异常处理器，不中断其余的回收方法
+     *
+     * @since 0.0.5
+     */
+    void cleanAll(@NotNull List<Recyclable> refs) {
+        for ( var r : refs ) {
+            try {
+                r.clean();
+            } catch ( Throwable e ) {
+                failures.increment();
+                report(e);
+            }
+        }
+    }
+
+    // 交由排空线程的异常处理器，没有则忽略，排空线程不能因此退出
+    private
+    void report(@NotNull Throwable e) {
+        var t = Thread.currentThread();
+        var h = t.getUncaughtExceptionHandler();
+        if (h == t.getThreadGroup())
+            h = Thread.getDefaultUncaughtExceptionHandler();
+        if (h == null)
+            return;
+        try {
+            h.uncaughtException(t, e);
+        } catch ( Throwable ignored ) {
+        }
+    }
+
+    // 记录处理状况
+    private
+    void record(int size, long nanos) {
+        drained.add(size);
+        pending.add(-size);
+        batches.increment();
+        drainNanos.add(nanos);
+        maxDrainNanos.accumulateAndGet(nanos, Math::max);
+        lastBatch = size;
+        maxBatch.accumulateAndGet(size, Math::max);
+    }
+
+    /** 直接执行回收方法的处理器，用于 {@link #binClean(Object, Runnable)} */
+    private final Recycler RUNNER = refs -> refs.forEach(Recyclable::clean);
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>回收处理器.</h2>
+     * <p>
+     * 由缓存实现，用于批量处理属于自己的被回收引用
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since CacheGcThrea 0.0.2
+     */
+    @FunctionalInterface
+    public
+    interface Recycler {
+        /**
+         * 处理一批被回收的引用
+         *
+         * @param refs 属于当前缓存的回收记录
+         */
+        void recycle(@NotNull List<Recyclable> refs);
+    }
+
+    /**
+     * <h2>回收记录.</h2>
+     * <p>
+     * 注册于共享回收队列中的引用，记录所属的缓存和键<br/>
+     * 调用 {@link #clean()} 执行数据的回收方法，只会执行一次
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since CacheGcThrea 0.0.2
+     */
+    public
+    interface Recyclable extends Cleaner.Cleanable {
+        /** 所属的缓存 */
+        @NotNull
+        Recycler recycler();
+
+        /** 数据对应的键 */
+        @Nullable
+        Object key();
+
+        /** 存放在缓存中的引用 */
+        @NotNull
+        Reference<?> target();
+    }
+
+    /**
+     * <h2>排空线程运行状况.</h2>
+     * <p>
+     * 批次数量为单次从队列中取出的引用数量，受 {@link #setBatchSize(int)} 限制，不代表队列中剩余的数量<br/>
+     * {@link ReferenceQueue} 不提供队列长度，队列深度使用 {@link #getPending()} 表示
+     *
+     * @author fybug
+     * @version 0.0.3
+     * @since CacheGcThrea 0.0.2
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final
+    class GcStats {
+        /** 排空线程数量 */
+        private final int threads;
+        /** 正在持有的带回收方法的引用数量 */
+        private final int tracked;
+        /** 已处理的引用数量 */
+        private final long drained;
+        /** 已处理的批次 */
+        private final long batches;
+        /** 最近一批的数量 */
+        private final int lastBatch;
+        /** 单批最大数量 */
+        private final int maxBatch;
+        /** 单批平均耗时（纳秒） */
+        private final long avgDrainNanos;
+        /** 单批最大耗时（纳秒） */
+        private final long maxDrainNanos;
+        /**
+         * 回收方法抛出异常的次数
+         *
+         * @since CacheGcThrea.GcStats 0.0.2
+         */
+        private final long failures;
+        /**
+         * 已注册还未被排空的引用数量
+         * <p>
+         * 包含仍在缓存中的数据，是回收队列深度的上限，缓存中的数据不变时的增长即为队列的积压
+         *
+         * @since CacheGcThrea.GcStats 0.0.3
+         */
+        private final long pending;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /** 软引用回收记录 */
+    static final
+    class SoftRef<V> extends SoftReference<V> implements Recyclable {
+        private final Recycler owner;
+        private final Object key;
+        private volatile Runnable clean;
+
+        SoftRef(V v, Recycler owner, Object key, Runnable clean) {
+            super(v, QUEUE);
+            this.owner = owner;
+            this.key = key;
+            this.clean = clean;
+        }
+
+        public @NotNull
+        Recycler recycler() { return owner; }
+
+        public @Nullable
+        Object key() { return key; }
+
+        public @NotNull
+        Reference<?> target() { return this; }
+
+        public
+        void clean() {
+            Runnable c;
+            synchronized ( this ){
+                c = clean;
+                clean = null;
+            }
+            runClean(this, c);
+        }
+    }
+
+    /** 弱引用回收记录 */
+    static final
+    class WeakRef<V> extends WeakReference<V> implements Recyclable {
+        private final Recycler owner;
+        private final Object key;
+        private volatile Runnable clean;
+
+        WeakRef(V v, Recycler owner, Object key, Runnable clean) {
+            super(v, QUEUE);
+            this.owner = owner;
+            this.key = key;
+            this.clean = clean;
+        }
+
+        public @NotNull
+        Recycler recycler() { return owner; }
+
+        public @Nullable
+        Object key() { return key; }
+
+        public @NotNull
+        Reference<?> target() { return this; }
+
+        public
+        void clean() {
+            Runnable c;
+            synchronized ( this ){
+                c = clean;
+                clean = null;
+            }
+            runClean(this, c);
+        }
+    }
+
+    /** 强引用回收记录，只会被主动释放 */
+    static final
+    class StrongRef<V> extends StrongReference<V> implements Recyclable {
+        private final Recycler owner;
+        private final Object key;
+        private volatile Runnable clean;
+
+        StrongRef(V v, Recycler owner, Object key, Runnable clean) {
+            super(v, QUEUE);
+            this.owner = owner;
+            this.key = key;
+            this.clean = clean;
+        }
+
+        public @NotNull
+        Recycler recycler() { return owner; }
+
+        public @Nullable
+        Object key() { return key; }
+
+        public @NotNull
+        Reference<?> target() { return this; }
+
+        public
+        void clean() {
+            Runnable c;
+            synchronized ( this ){
+                c = clean;
+                clean = null;
+            }
+            runClean(this, c);
+        }
+    }
+
+    /** 跟踪其他类型引用的回收记录 */
+    static final
+    class TrackRef extends PhantomReference<Object> implements Recyclable {
+        private final Recycler owner;
+        private final Object key;
+        private final Reference<?> target;
+        private volatile Runnable clean;
+
+        TrackRef(Object v, Recycler owner, Object key, Reference<?> target, Runnable clean) {
+            super(v, QUEUE);
+            this.owner = owner;
+            this.key = key;
+            this.target = target == null ? this : target;
+            this.clean = clean;
+        }
+
+        public @NotNull
+        Recycler recycler() { return owner; }
+
+        public @Nullable
+        Object key() { return key; }
+
+        public @NotNull
+        Reference<?> target() { return target; }
+
+        public
+        void clean() {
+            Runnable c;
+            synchronized ( this ){
+                c = clean;
+                clean = null;
+            }
+            clear();
+            runClean(this, c);
+        }
+    }
+
+    // 执行回收方法并放弃持有
+    private
+    void runClean(@NotNull Recyclable rec, @Nullable Runnable clean) {
+        TRACKED.remove(rec);
+        if (clean != null)
+            clean.run();
+    }
+}
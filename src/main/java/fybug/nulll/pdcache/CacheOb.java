@@ -6,6 +6,7 @@ import java.lang.ref.Cleaner;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.util.List;
 
 import fybug.nulll.pdconcurrent.SyLock;
 
@@ -13,10 +14,13 @@ import fybug.nulll.pdconcurrent.SyLock;
  * <h2>数据缓存通用类.</h2>
  * <p>
  * 用于缓存单个数据的缓存工具，数据对象可实现 {@link CanClean} 接口返回数据回收时的处理方法<br/>
- * 包含缓存的引用，缓存获取方法 {@link #getdata()}，缓存回收接口以及并发管理
+ * 包含缓存的引用，缓存获取方法 {@link #getdata()}，缓存回收接口以及并发管理<br/>
+ * 引用注册在 {@link CacheGcThrea} 的共享回收队列中，由排空线程统一处理<br/>
+ * 开启统计后可通过 {@link #stats()} 获取命中、生成与回收的统计<br/>
+ * 可使用 {@link #setRemovalListener(RemovalListener)} 监听数据的移除，通知的键为 null
  *
  * @author fybug
- * @version 0.0.2
+ * @version 0.0.8
  * @since PDCache 0.0.1
  */
 public abstract
@@ -25,12 +29,36 @@ class CacheOb<V> {
     protected final Class<? extends Reference<V>> refClass;
     /** 缓存引用 */
     protected volatile Reference<V> cache = new WeakReference<>(null);
+    /**
+     * 缓存方式，构造时由引用类型确定，放入数据时直接使用
+     *
+     * @since 0.0.5
+     */
+    @NotNull protected volatile ReferenceStrategy refStrategy;
 
     /** 数据回收接口 */
     protected volatile Cleaner.Cleanable cleanable = null;
 
     /** 并发管理 */
     protected final SyLock LOCK;
+    /**
+     * 回收处理器
+     *
+     * @since 0.0.3
+     */
+    protected final CacheGcThrea.Recycler recycler = this::recycle;
+    /**
+     * 统计计数器，未开启统计时为 null
+     *
+     * @since 0.0.4
+     */
+    @Nullable protected volatile StatsCounter statsCounter;
+    /**
+     * 移除通知总线，未绑定监听器时为 null
+     *
+     * @since 0.0.7
+     */
+    @Nullable protected volatile RemovalBus<Object, V> removalBus;
 
     //----------------------------------------------------------------------------------------------
 
@@ -42,55 +70,143 @@ class CacheOb<V> {
     protected
     CacheOb(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock) {
         this.refClass = (Class<Reference<V>>) refc;
+        refStrategy = ReferenceStrategy.of(refc);
         LOCK = syLock;
     }
 
+    /**
+     * 设置缓存方式
+     * <p>
+     * 仅影响之后放入的数据，应在放入数据前设置
+     *
+     * @since 0.0.5
+     */
+    protected
+    void setReferenceStrategy(@NotNull ReferenceStrategy strategy) { refStrategy = strategy; }
+
+    /**
+     * 绑定移除监听器
+     * <p>
+     * 使用默认的投递线程池，通知的键为 null
+     *
+     * @param listener 移除监听器，为 null 则解除绑定
+     *
+     * @since 0.0.7
+     */
+    @SuppressWarnings( "unchecked" )
+    protected
+    void setRemovalListener(@Nullable RemovalListener<?, ? super V> listener)
+    { removalBus = listener == null ? null : new RemovalBus<>((RemovalListener<Object, ? super V>) listener); }
+
+    // 发送移除通知，可在锁中调用
+    private
+    void removed(@Nullable V value, @NotNull RemovalCause cause) {
+        var b = removalBus;
+        if (b != null)
+            b.notify(null, value, cause);
+    }
+
+    /**
+     * 设置是否开启统计
+     *
+     * @since 0.0.4
+     */
+    protected
+    void setRecordStats(boolean recordStats) { statsCounter = recordStats ? new StatsCounter() : null; }
+
+    /**
+     * 获取统计快照
+     *
+     * @return 当前的统计，未开启统计时只有当前数量
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    public
+    CacheStats stats() {
+        var size = cache.get() == null ? 0 : 1;
+        var s = statsCounter;
+        return s == null ? CacheStats.empty(size) : s.snapshot(size);
+    }
+
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * 直接读取缓存
+     * <p>
+     * 不占用锁，数据不存在或正在释放时返回 null
+     *
+     * @return 当前缓存的数据
+     *
+     * @since 0.0.3
+     */
+    @Nullable
+    protected final
+    V peekdata() { return cache.get(); }
+
     /**
      * 获取缓存
+     * <p>
+     * 命中时不占用锁，也不产生额外的对象<br/>
+     * 数据被彻底释放后在锁外调用 {@link #emptyData()}
      *
      * @return 当前缓存的数据
      */
     @Nullable
     protected
     V getdata() throws Exception {
+        // 赋予强引用，防止进入回收队列
+        var v = cache.get();
+        var s = statsCounter;
+        if (v != null) {
+            if (s != null)
+                s.recordHits(1);
+            return v;
+        }
+
+        if (s != null)
+            s.recordMisses(1);
+        return awaitdata();
+    }
+
+    // 等待数据释放完成，未命中时调用
+    @Nullable
+    private
+    V awaitdata() throws Exception {
         var ref = new Object() {
             V item;
         };
 
-        // 赋予强引用，防止进入回收队列
-        LOCK.read(() -> ref.item = cache.get());
-
         // 校验数据
-        if (ref.item == null) {
-            var b = true;
-            /* 自旋，直到数据完整 */
-            while( b ){
-                b = LOCK.trywrite(Exception.class, () -> {
-                    /* 是否在释放 */
-                    if ((ref.item = cache.get()) == null) {
-                        /* 是否释放完成 */
-                        if (cleanable == null) {
-                            // 获取空数据处理
-                            ref.item = emptyData();
-                            // 完整空数据
-                            return false;
-                        }
-                        // 未清理完成
-                        return true;
-                    }
-                    // 数据完整
-                    return false;
-                });
-            }
+        var b = true;
+        /* 自旋，直到数据完整 */
+        while( b ){
+            b = LOCK.trywrite(Exception.class, () -> {
+                /* 是否在释放 */
+                if ((ref.item = cache.get()) == null) {
+                    /* 是否释放完成 */
+                    if (cleanable == null)
+                        // 完整空数据
+                        return false;
+                    // 未清理完成
+                    return true;
+                }
+                // 数据完整
+                return false;
+            });
         }
 
+        // 获取空数据处理，不占用锁
+        if (ref.item == null)
+            ref.item = emptyData();
+
         return ref.item;
     }
 
     /**
      * 无数据时的数据
+     * <p>
+     * 在锁外调用，可能会被多个线程同时调用
      *
      * @return 在没有缓存时返回的数据
      */
@@ -118,19 +234,23 @@ class CacheOb<V> {
                 if ((ref.item = cache.get()) == null && cleanable != null)
                     // 等待释放完成
                     return true;
+                // 放入同一个对象，保留原有的引用
+                if (ref.item == v)
+                    return false;
+                /* 被替换的数据 */
+                if (ref.item != null)
+                    removed(ref.item, RemovalCause.REPLACED);
 
                 // 获取对象的回收方法
-                if (v instanceof CanClean) {
-                    var c = ((CanClean) v).getclean();
-                    // 注册回收方法
-                    cleanable = CacheGcThrea.binClean(v, () -> LOCK.write(() -> {
-                        c.run();
-                        cleanable = null;
-                    }));
-                }
-
+                var clean = v instanceof CanClean ? ((CanClean) v).getclean() : null;
                 // 绑定缓存
-                cache = refClass.getConstructor(Object.class).newInstance(v);
+                var rec = refStrategy.bind(v, recycler, null, clean);
+                // 注册回收方法，没有时移除被替换数据的记录，防止等待不会完成的释放
+                cleanable = clean != null ? rec : null;
+                var old = cache;
+                cache = (Reference<V>) rec.target();
+                // 被替换的引用主动加入回收队列，与移除相同
+                old.enqueue();
                 // 处理完成
                 return false;
             });
@@ -152,21 +272,69 @@ class CacheOb<V> {
             if ((ref.item = cache.get()) == null)
                 return;
             // 手动释放
-            cache.enqueue();
+            var old = cache;
+            cache = new WeakReference<>(null);
+            old.enqueue();
+            // 与映射缓存的清空一致
+            removed(ref.item, RemovalCause.CLEARED);
+
+            var s = statsCounter;
+            if (s != null)
+                s.recordRemoval(1);
         });
     }
 
+    /**
+     * 处理被回收的缓存
+     * <p>
+     * 由 {@link CacheGcThrea} 的排空线程批量调用，仍是当前缓存的引用为被 GC 回收的数据
+     *
+     * @param refs 被回收的记录
+     *
+     * @since 0.0.3
+     */
+    protected
+    void recycle(@NotNull List<CacheGcThrea.Recyclable> refs) {
+        var tracked = LOCK.write(() -> {
+            var t = false;
+            for ( var r : refs ) {
+                /* 被 GC 回收 */
+                if (cache == r.target()) {
+                    cache = new WeakReference<>(null);
+                    removed(null, RemovalCause.COLLECTED);
+                    var s = statsCounter;
+                    if (s != null)
+                        s.recordCollected(1);
+                }
+                t |= cleanable == r;
+            }
+            return t;
+        });
+
+        // 回收方法在锁外执行
+        CacheGcThrea.cleanAll(refs);
+        /* 释放完成 */
+        if (tracked)
+            LOCK.write(() -> {
+                if (refs.contains(cleanable))
+                    cleanable = null;
+            });
+    }
+
     /*--------------------------------------------------------------------------------------------*/
 
     /**
      * <h2> {@link CacheOb} 子类通用构造工具.</h2>
      * <ul>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
+     * <li>使用 {@link #referenceStrategy(ReferenceStrategy)} 指定自定义的缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.4
      * @since CacheOb 0.0.1
      */
     @SuppressWarnings( "unchecked" )
@@ -174,8 +342,26 @@ class CacheOb<V> {
     class Build<V, B extends Build<V, B>> {
         /** 缓存引用类型 */
         protected Class<? extends Reference> refernce = SoftReference.class;
+        /**
+         * 缓存方式
+         *
+         * @since CacheOb.Build 0.0.3
+         */
+        protected ReferenceStrategy referenceStrategy = ReferenceStrategy.SOFT;
         /** 并发管理 */
         protected SyLock lockBy = SyLock.newRWLock();
+        /**
+         * 是否开启统计
+         *
+         * @since CacheOb.Build 0.0.2
+         */
+        protected boolean recordStats = false;
+        /**
+         * 移除监听器
+         *
+         * @since CacheOb.Build 0.0.4
+         */
+        @Nullable protected RemovalListener<?, ? super V> removalListener;
 
         //------------------------------------------------------------------------------------------
 
@@ -184,6 +370,21 @@ class CacheOb<V> {
         public final
         B refernce(Class<? extends Reference> refernce) {
             this.refernce = refernce;
+            this.referenceStrategy = ReferenceStrategy.of(refernce);
+            return (B) this;
+        }
+
+        /**
+         * 设置缓存方式
+         * <p>
+         * 用于 {@link ReferenceStrategy#custom} 等无法通过引用类型表示的方式
+         *
+         * @since CacheOb.Build 0.0.3
+         */
+        @NotNull
+        public final
+        B referenceStrategy(@NotNull ReferenceStrategy strategy) {
+            this.referenceStrategy = strategy;
             return (B) this;
         }
 
@@ -195,6 +396,34 @@ class CacheOb<V> {
             return (B) this;
         }
 
+        /**
+         * 开启统计
+         * <p>
+         * 统计使用分条计数，不会在读取时产生竞争
+         *
+         * @since CacheOb.Build 0.0.2
+         */
+        @NotNull
+        public final
+        B recordStats() {
+            this.recordStats = true;
+            return (B) this;
+        }
+
+        /**
+         * 绑定移除监听器
+         * <p>
+         * 数据离开缓存后在锁外异步分批通知，通知的键为 null
+         *
+         * @since CacheOb.Build 0.0.4
+         */
+        @NotNull
+        public final
+        B removalListener(@NotNull RemovalListener<?, ? super V> listener) {
+            this.removalListener = listener;
+            return (B) this;
+        }
+
         @NotNull
         public abstract
         CacheOb<V> build();
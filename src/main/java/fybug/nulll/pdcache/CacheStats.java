@@ -0,0 +1,87 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <h2>缓存统计快照.</h2>
+ * <p>
+ * 由缓存的 {@code stats()} 生成，未开启统计时除当前数量外全部为 0<br/>
+ * 开启统计需要在构造工具中调用 {@code recordStats()}
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @see StatsCounter
+ * @since PDCache 0.0.3
+ */
+@Getter
+@AllArgsConstructor
+public final
+class CacheStats {
+    /** 命中次数 */
+    private final long hitCount;
+    /** 未命中次数 */
+    private final long missCount;
+    /** 成功生成数据的次数 */
+    private final long loadSuccessCount;
+    /** 生成数据失败的次数 */
+    private final long loadFailureCount;
+    /** 生成数据的总耗时（纳秒） */
+    private final long totalLoadTime;
+    /** 被 GC 回收的数据数量 */
+    private final long collectedCount;
+    /** 过期的数据数量 */
+    private final long expiredCount;
+    /** 被主动移除的数据数量 */
+    private final long removalCount;
+    /** 因数量限制被淘汰的数据数量 */
+    private final long evictionCount;
+    /**
+     * 由缓存的无数据或失败结果直接返回的请求次数
+     *
+     * @since 0.0.2
+     */
+    private final long negativeHitCount;
+    /**
+     * 生成结果为无数据的次数
+     *
+     * @since 0.0.2
+     */
+    private final long absentCount;
+    /** 当前缓存数量 */
+    private final long size;
+
+    /** 生成空的统计快照 */
+    @NotNull
+    public static
+    CacheStats empty(long size) { return new CacheStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, size); }
+
+    /** 请求次数 */
+    public
+    long requestCount() { return hitCount + missCount; }
+
+    /** 命中率，没有请求时为 1 */
+    public
+    double hitRate() {
+        var request = requestCount();
+        return request == 0 ? 1.0 : (double) hitCount / request;
+    }
+
+    /** 平均生成耗时（纳秒） */
+    public
+    double averageLoadPenalty() {
+        var load = loadSuccessCount + loadFailureCount;
+        return load == 0 ? 0.0 : (double) totalLoadTime / load;
+    }
+
+    @Override
+    public
+    String toString() {
+        return "CacheStats{hit=" + hitCount + ", miss=" + missCount + ", loadSuccess=" + loadSuccessCount +
+               ", loadFailure=" + loadFailureCount + ", totalLoadTime=" + totalLoadTime + ", collected=" +
+               collectedCount + ", expired=" + expiredCount + ", removal=" + removalCount + ", eviction=" +
+               evictionCount + ", negativeHit=" + negativeHitCount + ", absent=" + absentCount + ", size=" + size +
+               '}';
+    }
+}
@@ -0,0 +1,338 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import fybug.nulll.pdconcurrent.SyLock;
+
+/**
+ * <h2>磁盘二级缓存.</h2>
+ * <p>
+ * 数据通过 {@link ValueCodec} 编码后追加写入内存映射的分段文件，索引保存在内存中<br/>
+ * 可通过 {@link MapCacheOb.Build#diskTier(DiskTier)} 绑定到映射缓存，写入缓存时同时写入磁盘，
+ * 数据被 GC 回收或被数量限制淘汰后，读取时从磁盘取回并重新放入缓存，不需要重新生成
+ * <br/><br/>
+ * 覆盖与移除的数据在文件中成为无效数据，分段文件写满后切换到新的分段<br/>
+ * 分段数量达到上限时进行整理：无效数据超过一半的分段会将有效数据读出后删除文件，再写入新的分段；
+ * 没有这样的分段时删除最旧的分段，其中的数据一并丢弃
+ * <br/><br/>
+ * 只作为缓存使用，写入失败的数据直接丢弃<br/>
+ * 每个实例在指定的目录中创建独立的子目录存放分段文件，只会删除自己创建的文件，多个实例可以使用同一个目录，
+ * 关闭时删除该子目录
+ *
+ * @param <K> 键的类型
+ * @param <V> 数据类型
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @since PDCache 0.0.3
+ */
+public
+class DiskTier<K, V> implements Closeable {
+    /** 分段文件后缀 */
+    private static final String SUFFIX = ".seg";
+    /** 子目录前缀 */
+    private static final String PREFIX = "pdcache-tier-";
+
+    /** 分段文件目录，由当前实例创建 */
+    private final Path dir;
+    /** 数据编码接口 */
+    private final ValueCodec<V> codec;
+    /** 分段文件大小 */
+    private final int segmentSize;
+    /** 分段数量上限 */
+    private final int maxSegments;
+
+    /** 数据位置索引 */
+    private final Map<K, Loc> index = new HashMap<>();
+    /** 分段，按写入顺序排列 */
+    private final List<FileSegment> segments = new ArrayList<>();
+    /** 当前写入的分段 */
+    @Nullable private FileSegment active;
+    /** 下一个分段编号 */
+    private long nextId;
+    /** 并发管理 */
+    private final SyLock LOCK = SyLock.newRWLock();
+    // 是否被关闭
+    private volatile boolean isClose = false;
+
+    /**
+     * 构造磁盘缓存，分段文件大小为 64 MB
+     *
+     * @param dir      分段文件目录，会在其中创建当前实例使用的子目录
+     * @param codec    数据编码接口
+     * @param maxBytes 磁盘占用上限，至少为一个分段
+     */
+    public
+    DiskTier(@NotNull Path dir, @NotNull ValueCodec<V> codec, long maxBytes) throws IOException
+    { this(dir, codec, maxBytes, 64 << 20); }
+
+    /**
+     * 构造磁盘缓存
+     *
+     * @param dir         分段文件目录，会在其中创建当前实例使用的子目录
+     * @param codec       数据编码接口
+     * @param maxBytes    磁盘占用上限，至少为一个分段
+     * @param segmentSize 分段文件大小，也是单个数据的最大大小
+     */
+    public
+    DiskTier(@NotNull Path dir, @NotNull ValueCodec<V> codec, long maxBytes, int segmentSize)
+            throws IOException
+    {
+        // 独立的子目录，不接触目录中的其他文件
+        this.dir = Files.createTempDirectory(Files.createDirectories(dir), PREFIX);
+        this.codec = codec;
+        this.segmentSize = Math.max(segmentSize, 1);
+        maxSegments = (int) Math.min(Math.max(maxBytes / this.segmentSize, 1), Integer.MAX_VALUE);
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 读取数据
+     *
+     * @param key 数据的键
+     *
+     * @return 解码后的数据，没有或解码失败时为 null
+     */
+    @Nullable
+    public
+    V get(@NotNull K key) {
+        if (isClose)
+            return null;
+        return LOCK.read(() -> {
+            var loc = index.get(key);
+            if (loc == null)
+                return null;
+            try {
+                return codec.decode(loc.seg.slice(loc.offset, loc.length).asReadOnlyBuffer());
+            } catch ( Exception e ) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 写入数据
+     * <p>
+     * 覆盖原有的数据，编码或写入失败时丢弃该键的数据
+     *
+     * @param key 数据的键
+     * @param v   数据
+     *
+     * @return 是否写入成功
+     */
+    public
+    boolean put(@NotNull K key, @NotNull V v) {
+        if (isClose)
+            return false;
+        return LOCK.write(() -> {
+            discard(index.remove(key));
+            try {
+                var length = codec.size(v);
+                if (length > segmentSize)
+                    return false;
+
+                var seg = reserve(length);
+                codec.encode(v, seg.slice(seg.pos, length));
+                index.put(key, new Loc(seg, seg.pos, length));
+                seg.pos += length;
+                return true;
+            } catch ( Exception e ) {
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 移除数据
+     *
+     * @param key 数据的键
+     */
+    public
+    void remove(@NotNull K key) {
+        if (!isClose)
+            LOCK.write(() -> discard(index.remove(key)));
+    }
+
+    /** 清空数据并删除所有分段文件 */
+    public
+    void clear() {
+        LOCK.write(() -> {
+            index.clear();
+            segments.forEach(FileSegment::delete);
+            segments.clear();
+            active = null;
+        });
+    }
+
+    /** 数据数量 */
+    public
+    int size() { return LOCK.read(index::size); }
+
+    /**
+     * 分段文件目录
+     *
+     * @since 0.0.2
+     */
+    @NotNull
+    public
+    Path dir() { return dir; }
+
+    /** 分段文件占用的磁盘大小 */
+    public
+    long diskSize() { return LOCK.read(() -> (long) segments.size() * segmentSize); }
+
+    /** 关闭并删除分段文件目录 */
+    @Override
+    public
+    void close() {
+        isClose = true;
+        clear();
+        try {
+            Files.deleteIfExists(dir);
+        } catch ( IOException ignored ) {
+            // 分段文件还未释放
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 记录无效数据
+    private
+    void discard(@Nullable Loc loc) {
+        if (loc != null)
+            loc.seg.garbage += loc.length;
+    }
+
+    // 获取剩余空间足够的分段
+    @NotNull
+    private
+    FileSegment reserve(int length) throws IOException {
+        while( active == null || segmentSize - active.pos < length )
+            roll();
+        return active;
+    }
+
+    // 切换分段，达到上限时先进行整理
+    private
+    void roll() throws IOException {
+        if (segments.size() < maxSegments) {
+            active = newSegment();
+            return;
+        }
+
+        // 无效数据最多的分段
+        FileSegment victim = null;
+        for ( var s : segments ) {
+            if (victim == null || s.garbage > victim.garbage)
+                victim = s;
+        }
+
+        if (victim.garbage > 0 && victim.garbage * 2L >= victim.pos)
+            compact(victim);
+        else
+            drop(segments.get(0));
+    }
+
+    // 整理分段，有效数据不超过一半，可写入新的分段
+    private
+    void compact(@NotNull FileSegment victim) throws IOException {
+        /* 读出有效数据 */
+        var live = new HashMap<K, byte[]>();
+        index.forEach((k, loc) -> {
+            if (loc.seg == victim) {
+                var b = new byte[loc.length];
+                victim.slice(loc.offset, loc.length).get(b);
+                live.put(k, b);
+            }
+        });
+        drop(victim);
+
+        var seg = active = newSegment();
+        live.forEach((k, b) -> {
+            seg.slice(seg.pos, b.length).put(b);
+            index.put(k, new Loc(seg, seg.pos, b.length));
+            seg.pos += b.length;
+        });
+    }
+
+    // 删除分段与其中的数据
+    private
+    void drop(@NotNull FileSegment seg) {
+        index.values().removeIf(loc -> loc.seg == seg);
+        segments.remove(seg);
+        if (active == seg)
+            active = null;
+        seg.delete();
+    }
+
+    // 生成新的分段
+    @NotNull
+    private
+    FileSegment newSegment() throws IOException {
+        var path = dir.resolve(nextId++ + SUFFIX);
+        try ( var ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE) ) {
+            var seg = new FileSegment(path, ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+            segments.add(seg);
+            return seg;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /** 分段文件 */
+    private static final
+    class FileSegment {
+        final Path path;
+        final MappedByteBuffer buffer;
+        /** 写入位置 */
+        int pos;
+        /** 无效数据大小 */
+        int garbage;
+
+        FileSegment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        // 获取指定范围的视图
+        ByteBuffer slice(int offset, int length)
+        { return buffer.duplicate().position(offset).limit(offset + length).slice(); }
+
+        // 删除文件，映射在被回收后释放
+        void delete() {
+            try {
+                Files.deleteIfExists(path);
+            } catch ( IOException ignored ) {
+            }
+        }
+    }
+
+    /** 数据位置 */
+    private static final
+    class Loc {
+        final FileSegment seg;
+        final int offset;
+        final int length;
+
+        Loc(FileSegment seg, int offset, int length) {
+            this.seg = seg;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h2>访问频率估算.</h2>
+ * <p>
+ * 使用 4 位计数器的 Count-Min Sketch 估算数据的访问频率，每个数据最多记录到 15 次<br/>
+ * 记录次数达到容量的 10 倍后所有计数器减半，使频率随时间衰减
+ * <br/><br/>
+ * <b>该工具不是线程安全的，并发记录时可能丢失部分计数，仅适用于近似统计</b>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+public final
+class FrequencySketch {
+    /** 计算下标用的种子 */
+    private static final long[] SEED = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                                        0xcbf29ce484222325L};
+    /** 减半后保留的位 */
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /** 每个计数器的最低位 */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /** 计数器，每个 long 有 16 个计数器 */
+    private final long[] table;
+    private final int tableMask;
+    /** 衰减周期 */
+    private final int sampleSize;
+    /** 当前周期的记录次数 */
+    private int size;
+
+    /**
+     * 构造估算工具
+     *
+     * @param maximumSize 需要统计的数据数量
+     */
+    public
+    FrequencySketch(long maximumSize) {
+        int max = (int) Math.min(Math.max(maximumSize, 1), 1 << 30);
+        table = new long[max <= 1 ? 1 : Integer.highestOneBit(max - 1) << 1];
+        tableMask = table.length - 1;
+        sampleSize = max >= (Integer.MAX_VALUE / 10) ? Integer.MAX_VALUE : 10 * max;
+    }
+
+    /**
+     * 获取数据的估算频率
+     *
+     * @param e 数据
+     *
+     * @return 0 ~ 15 的访问次数
+     */
+    public
+    int frequency(@NotNull Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for ( int i = 0; i < 4; i++ ) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param e 数据
+     */
+    public
+    void increment(@NotNull Object e) {
+        int hash = spread(e.hashCode());
+        int start = (hash & 3) << 2;
+
+        boolean added = false;
+        for ( int i = 0; i < 4; i++ )
+            added |= incrementAt(indexOf(hash, i), start + i);
+
+        if (added && ++size >= sampleSize)
+            reset();
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 计数器加一，已满则不变
+    private
+    boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    // 所有计数器减半
+    private
+    void reset() {
+        int count = 0;
+        for ( int i = 0; i < table.length; i++ ) {
+            count += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (count >>> 2);
+    }
+
+    // 第 i 个计数器所在的下标
+    private
+    int indexOf(int item, int i) {
+        long hash = (item + SEED[i]) * SEED[i];
+        hash += (hash >>> 32);
+        return ((int) hash) & tableMask;
+    }
+
+    // 打散哈希
+    private static
+    int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
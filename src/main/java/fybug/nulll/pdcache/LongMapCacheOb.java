@@ -0,0 +1,572 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import fybug.nulll.pdconcurrent.SyLock;
+import lombok.Getter;
+
+/**
+ * <h2>long 键映射缓存的基础实现.</h2>
+ * <p>
+ * 与 {@link MapCacheOb} 相同的缓存方式与回收处理，但键为 long，存放在 {@link LongTable} 开放寻址表中，
+ * 读取与放入都不会对键装箱，只在生成引用时为回收记录保存一次键<br/>
+ * int 键的缓存同样使用该实现，键扩展为 long
+ * <br/><br/>
+ * 数据按键分布到各自独立加锁的分段 {@link LongSegment} 中，读取不占用锁：
+ * 读取前后检查分段的修改次数，期间有修改时改为在读锁中读取，因此命中时不产生额外的对象<br/>
+ * 绑定移除监听器后，只在发送通知时对键装箱
+ *
+ * @param <V> 缓存的数据类型
+ *
+ * @author fybug
+ * @version 0.0.3
+ * @see MapCacheOb
+ * @since PDCache 0.0.3
+ */
+public abstract
+class LongMapCacheOb<V> implements Closeable {
+    /** 缓存方式 */
+    @NotNull protected volatile ReferenceStrategy refStrategy;
+    /** 数据分段 */
+    protected final LongSegment<V>[] segments;
+    /** 分段掩码 */
+    private final int segmentMask;
+    /** 回收处理器 */
+    protected final CacheGcThrea.Recycler recycler = this::recycle;
+    /** 统计计数器，未开启统计时为 null */
+    @Nullable protected volatile StatsCounter statsCounter;
+    /**
+     * 移除通知总线，未绑定监听器时为 null
+     *
+     * @since 0.0.2
+     */
+    @Nullable protected volatile RemovalBus<Long, V> removalBus;
+    // 是否被关闭
+    @Getter private volatile boolean isClose = false;
+
+    //----------------------------------------------------------------------------------------------
+
+    /** 构造缓存，指定缓存方式 */
+    public
+    LongMapCacheOb(@NotNull Class<? extends Reference> refc) { this(refc, SyLock.newRWLock(), 1); }
+
+    /**
+     * 构造缓存，指定缓存方式、并发管理和分段数量
+     * <p>
+     * 分段数量会向上取整为 2 的幂，第一个分段使用传入的并发管理，其余分段使用同类型的新实例
+     *
+     * @param refc     缓存引用类型
+     * @param syLock   并发管理
+     * @param segments 分段数量
+     */
+    public
+    LongMapCacheOb(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments) {
+        refStrategy = ReferenceStrategy.of(refc);
+
+        var n = segments <= 1 ? 1 : Integer.highestOneBit(Math.min(segments, 1 << 16) - 1) << 1;
+        this.segments = new LongSegment[n];
+        this.segments[0] = new LongSegment<>(syLock);
+        for ( int i = 1; i < n; i++ )
+            this.segments[i] = new LongSegment<>(newLock(syLock));
+        segmentMask = n - 1;
+    }
+
+    // 生成同类型的并发管理
+    @NotNull
+    private static
+    SyLock newLock(@NotNull SyLock syLock) {
+        try {
+            return syLock.getClass().getConstructor().newInstance();
+        } catch ( Exception e ) {
+            return SyLock.newRWLock();
+        }
+    }
+
+    /** 获取键所在的分段 */
+    @NotNull
+    protected final
+    LongSegment<V> segment(long key) { return segments[segmentIndex(key)]; }
+
+    // 键所在的分段下标
+    private
+    int segmentIndex(long key) {
+        if (segmentMask == 0)
+            return 0;
+        var h = (int) (key ^ (key >>> 32));
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+
+    /**
+     * 设置缓存方式
+     * <p>
+     * 仅影响之后放入的数据，应在放入数据前设置
+     */
+    protected
+    void setReferenceStrategy(@NotNull ReferenceStrategy strategy) { refStrategy = strategy; }
+
+    /**
+     * 绑定移除监听器
+     *
+     * @param listener 移除监听器，为 null 则解除绑定
+     *
+     * @since 0.0.2
+     */
+    protected
+    void setRemovalListener(@Nullable RemovalListener<? super Long, ? super V> listener)
+    { removalBus = listener == null ? null : new RemovalBus<>(listener); }
+
+    // 发送移除通知，可在锁中调用
+    private
+    void removed(long key, @Nullable V value, @NotNull RemovalCause cause) {
+        var b = removalBus;
+        if (b != null)
+            b.notify(key, value, cause);
+    }
+
+    /** 设置是否开启统计 */
+    protected
+    void setRecordStats(boolean recordStats) { statsCounter = recordStats ? new StatsCounter() : null; }
+
+    /**
+     * 获取统计快照
+     *
+     * @return 当前的统计，未开启统计时只有当前数量
+     */
+    @NotNull
+    public
+    CacheStats stats() {
+        var size = size();
+        var s = statsCounter;
+        return s == null ? CacheStats.empty(size) : s.snapshot(size);
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 直接读取缓存数据
+     * <p>
+     * 不占用锁，数据不存在或正在释放时返回 null
+     */
+    @Nullable
+    protected final
+    V peekdata(long key) {
+        var ref = segment(key).get(key);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * 获取缓存数据
+     * <p>
+     * 命中时不占用锁，也不产生额外的对象<br/>
+     * 未命中时占用锁等待数据释放完成，数据被彻底释放后在锁外调用 {@link #emptyData(long)}
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存数据
+     */
+    @Nullable
+    protected
+    V getdata(long key) throws Exception {
+        var seg = segment(key);
+        var ref = seg.get(key);
+        V v;
+        var s = statsCounter;
+        if (ref != null && (v = ref.get()) != null) {
+            if (s != null)
+                s.recordHits(1);
+            return v;
+        }
+
+        if (s != null)
+            s.recordMisses(1);
+        return awaitdata(seg, key);
+    }
+
+    // 等待数据释放完成，未命中时调用
+    @Nullable
+    private
+    V awaitdata(@NotNull LongSegment<V> seg, long key) throws Exception {
+        var ref = new Object() {
+            V item;
+        };
+
+        var b = true;
+        /* 自旋，直到数据完整 */
+        while( b ){
+            b = seg.LOCK.trywrite(Exception.class, () -> {
+                Reference<V> r;
+                /* 当前是否正在释放 */
+                if ((r = seg.map.get(key)) == null || (ref.item = r.get()) == null)
+                    // 扫尾接口是否运行完成
+                    return seg.cleanableMap.get(key) != null;
+                // 数据完整
+                return false;
+            });
+        }
+
+        /* 空数据处理，不占用锁 */
+        if (ref.item == null)
+            ref.item = emptyData(key);
+        return ref.item;
+    }
+
+    /**
+     * 无数据时的数据
+     * <p>
+     * 在锁外调用，可能会被多个线程同时调用
+     *
+     * @return 在没有缓存时返回的数据
+     */
+    @Nullable
+    protected abstract
+    V emptyData(long key) throws Exception;
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 更新缓存内容
+     *
+     * @param key 缓存键
+     * @param v   缓存内容
+     */
+    protected
+    void putdata(long key, @NotNull V v) throws Exception {
+        final var seg = segment(key);
+        /* 自旋，直到数据完整 */
+        while( seg.LOCK.trywrite(Exception.class, () -> putref(seg, key, v)) )
+            ;
+    }
+
+    // 在分段中放入数据，需在分段的写锁中运行，返回是否需要等待释放
+    private
+    boolean putref(@NotNull LongSegment<V> seg, long key, @NotNull V v) throws Exception {
+        Reference<V> ref;
+        /* 正在释放 */
+        if (((ref = seg.map.get(key)) != null && ref.get() == null) && seg.cleanableMap.get(key) != null)
+            // 等待释放完成
+            return true;
+        /* 被替换的数据 */
+        V old = ref == null ? null : ref.get();
+        // 放入同一个对象，保留原有的引用
+        if (old == v)
+            return false;
+        if (old != null)
+            removed(key, old, RemovalCause.REPLACED);
+
+        // 获取对象的回收方法
+        var clean = v instanceof CanClean ? ((CanClean) v).getclean() : null;
+        // 生成引用，回收记录需要保存键
+        var rec = refStrategy.bind(v, recycler, key, clean);
+        /* 注册回收方法，没有时移除被替换数据的记录，防止等待不会完成的释放 */
+        if (clean != null)
+            seg.cleanableMap.put(key, rec);
+        else
+            seg.cleanableMap.remove(key);
+
+        seg.beginWrite();
+        seg.map.put(key, (Reference<V>) rec.target());
+        seg.endWrite();
+        // 被替换的引用主动加入回收队列，与移除相同
+        if (ref != null)
+            ref.enqueue();
+        return false;
+    }
+
+    /**
+     * 移除缓存
+     * <p>
+     * 从缓存区中移除后将缓存内容主动加入回收队列
+     *
+     * @param key 要释放的键
+     *
+     * @return 释放的内容
+     */
+    @Nullable
+    protected
+    V removeData(long key) {
+        final var seg = segment(key);
+        return seg.LOCK.write(() -> {
+            var ref = seg.map.get(key);
+            V v;
+            // 已在释放
+            if (ref == null || (v = ref.get()) == null)
+                return null;
+
+            // 手动释放
+            seg.beginWrite();
+            seg.map.remove(key, ref);
+            seg.endWrite();
+            ref.enqueue();
+            removed(key, v, RemovalCause.EXPLICIT);
+
+            var s = statsCounter;
+            if (s != null)
+                s.recordRemoval(1);
+            return v;
+        });
+    }
+
+    /** 清空缓存数据 */
+    public
+    void clear() {
+        for ( var seg : segments )
+            seg.LOCK.write(() -> {
+                seg.map.forEach((v, k) -> {
+                    V val;
+                    if ((val = v.get()) != null) {
+                        v.enqueue();
+                        removed(k, val, RemovalCause.CLEARED);
+                    }
+                });
+                seg.beginWrite();
+                seg.map.clear();
+                seg.endWrite();
+            });
+    }
+
+    /**
+     * 获取缓存数量
+     * <p>
+     * 包含已被回收但还未被排空线程移除的键
+     */
+    public
+    int size() {
+        var n = 0;
+        for ( var seg : segments )
+            n += seg.LOCK.read(seg.map::size);
+        return n;
+    }
+
+    @Override
+    public
+    void close() {
+        if (isClose())
+            return;
+        isClose = true;
+        clear();
+    }
+
+    /**
+     * 处理被回收的缓存
+     * <p>
+     * 由 {@link CacheGcThrea} 的排空线程批量调用，一批数据在每个分段只占用一次锁<br/>
+     * 仅移除仍指向被回收引用的键
+     *
+     * @param refs 被回收的记录
+     */
+    protected
+    void recycle(@NotNull List<CacheGcThrea.Recyclable> refs) {
+        var s = statsCounter;
+        if (segmentMask == 0) {
+            var n = segments[0].recycle(refs, removalBus);
+            if (s != null)
+                s.recordCollected(n);
+            return;
+        }
+
+        // 按分段分组
+        var group = new List[segments.length];
+        for ( var r : refs ) {
+            var i = segmentIndex((Long) r.key());
+            if (group[i] == null)
+                group[i] = new ArrayList<>();
+            group[i].add(r);
+        }
+        var n = 0;
+        for ( int i = 0; i < group.length; i++ ) {
+            if (group[i] != null)
+                n += segments[i].recycle(group[i], removalBus);
+        }
+        if (s != null)
+            s.recordCollected(n);
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2> {@link LongMapCacheOb} 子类通用构造工具.</h2>
+     * <ul>
+     * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
+     * <li>使用 {@link #referenceStrategy(ReferenceStrategy)} 指定自定义的缓存方式</li>
+     * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
+     * <li>使用 {@link #build()} 进行构造</li>
+     * </ul>
+     *
+     * @version 0.0.2
+     * @since LongMapCacheOb 0.0.1
+     */
+    @SuppressWarnings( "unchecked" )
+    public static abstract
+    class Build<V, B extends Build<V, B>> {
+        /** 缓存引用类型 */
+        protected Class<? extends Reference> refernce = SoftReference.class;
+        /** 缓存方式 */
+        protected ReferenceStrategy referenceStrategy = ReferenceStrategy.SOFT;
+        /** 并发管理 */
+        protected SyLock lockBy = SyLock.newRWLock();
+        /** 分段数量 */
+        protected int segments = 1;
+        /** 是否开启统计 */
+        protected boolean recordStats = false;
+        /**
+         * 移除监听器
+         *
+         * @since LongMapCacheOb.Build 0.0.2
+         */
+        @Nullable protected RemovalListener<? super Long, ? super V> removalListener;
+
+        /** 设置缓存引用类型 */
+        @NotNull
+        public
+        B refernce(Class<? extends Reference> refernce) {
+            this.refernce = refernce;
+            this.referenceStrategy = ReferenceStrategy.of(refernce);
+            return (B) this;
+        }
+
+        /** 设置缓存方式 */
+        @NotNull
+        public
+        B referenceStrategy(@NotNull ReferenceStrategy strategy) {
+            this.referenceStrategy = strategy;
+            return (B) this;
+        }
+
+        /** 设置并发管理 */
+        @NotNull
+        public
+        B lockBy(@NotNull SyLock lockBy) {
+            this.lockBy = lockBy;
+            return (B) this;
+        }
+
+        /**
+         * 设置分段数量
+         * <p>
+         * 每个分段使用与 {@link #lockBy(SyLock)} 同类型的独立并发管理，数量会向上取整为 2 的幂
+         */
+        @NotNull
+        public
+        B segments(int segments) {
+            this.segments = segments;
+            return (B) this;
+        }
+
+        /** 开启统计 */
+        @NotNull
+        public
+        B recordStats() {
+            this.recordStats = true;
+            return (B) this;
+        }
+
+        /**
+         * 绑定移除监听器
+         *
+         * @since LongMapCacheOb.Build 0.0.2
+         */
+        @NotNull
+        public
+        B removalListener(@NotNull RemovalListener<? super Long, ? super V> listener) {
+            this.removalListener = listener;
+            return (B) this;
+        }
+
+        @NotNull
+        public abstract
+        LongMapCacheOb<V> build();
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>数据分段.</h2>
+     * 每个分段拥有独立的数据缓存区、回收接口存放区和并发管理 {@link #LOCK}<br/>
+     * 缓存区的修改需要在写锁中并包裹在 {@link #beginWrite()} 与 {@link #endWrite()} 之间，
+     * 读取时通过修改次数校验结果
+     *
+     * @author fybug
+     * @version 0.0.3
+     * @since LongMapCacheOb 0.0.1
+     */
+    protected static final
+    class LongSegment<V> {
+        /** 数据缓存区 */
+        final LongTable<Reference<V>> map = new LongTable<>();
+        /** 回收接口存放区，仅存放有回收方法的数据，只在锁中访问 */
+        final LongTable<Cleaner.Cleanable> cleanableMap = new LongTable<>();
+        /** 并发管理 */
+        public final SyLock LOCK;
+        /** 修改次数，奇数时正在修改 */
+        private volatile int version;
+
+        LongSegment(@NotNull SyLock lock) { LOCK = lock; }
+
+        /**
+         * 读取缓存区
+         * <p>
+         * 先不加锁读取，期间有修改时改为在读锁中读取
+         */
+        @Nullable
+        Reference<V> get(long key) {
+            var v = version;
+            if ((v & 1) == 0) {
+                var ref = map.get(key);
+                VarHandle.loadLoadFence();
+                if (version == v)
+                    return ref;
+            }
+            return LOCK.read(() -> map.get(key));
+        }
+
+        /** 开始修改缓存区 */
+        void beginWrite() {
+            version++;
+            VarHandle.storeStoreFence();
+        }
+
+        /** 结束修改缓存区 */
+        void endWrite() { version++; }
+
+        /*
+         * 移除被回收的数据，返回移除的数量
+         * 回收方法在锁外执行，完成后再移除回收记录，等待释放的读取在此之前不会生成新的数据
+         */
+        int recycle(@NotNull List<CacheGcThrea.Recyclable> refs, @Nullable RemovalBus<Long, V> bus) {
+            var tracked = new ArrayList<CacheGcThrea.Recyclable>();
+            int n = LOCK.write(() -> {
+                var c = 0;
+                for ( var r : refs ) {
+                    long key = (Long) r.key();
+                    beginWrite();
+                    var removed = map.remove(key, r.target());
+                    endWrite();
+                    if (removed) {
+                        c++;
+                        if (bus != null)
+                            bus.notify(key, null, RemovalCause.COLLECTED);
+                    }
+                    if (cleanableMap.get(key) == r)
+                        tracked.add(r);
+                }
+                return c;
+            });
+
+            CacheGcThrea.cleanAll(refs);
+            if (!tracked.isEmpty())
+                LOCK.write(() -> tracked.forEach(r -> cleanableMap.remove((Long) r.key(), r)));
+            return n;
+        }
+    }
+}
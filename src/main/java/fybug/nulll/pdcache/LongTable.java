@@ -0,0 +1,204 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * <h2>long 键的开放寻址表.</h2>
+ * <p>
+ * 键存放在 long 数组中，不进行装箱，使用线性探测，负载超过 2/3 时扩容<br/>
+ * 移除时将后续的记录前移，不留下删除标记，因此查找开销不会随移除增加
+ * <br/><br/>
+ * <b>该工具不是线程安全的，需要在外部加锁</b><br/>
+ * {@link #get(long)} 在并发修改时不会抛出异常或死循环，但结果可能不正确，需要调用方校验
+ *
+ * @param <T> 数据类型
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @since PDCache 0.0.3
+ */
+final
+class LongTable<T> {
+    /** 键 */
+    private long[] keys;
+    /** 数据，null 为空位 */
+    private Object[] vals;
+    /** 数据数量 */
+    private int size;
+
+    LongTable() {
+        keys = new long[16];
+        vals = new Object[16];
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /** 获取数据 */
+    @Nullable
+    T get(long key) {
+        var ks = keys;
+        var vs = vals;
+        // 扩容中
+        if (ks.length != vs.length)
+            return null;
+
+        int mask = ks.length - 1;
+        for ( int i = mix(key) & mask, n = 0; n <= mask; i = (i + 1) & mask, n++ ) {
+            var v = vs[i];
+            if (v == null)
+                return null;
+            if (ks[i] == key)
+                return (T) v;
+        }
+        return null;
+    }
+
+    /**
+     * 放入数据
+     *
+     * @return 原有的数据
+     */
+    @Nullable
+    T put(long key, @NotNull T v) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while( vals[i] != null ){
+            if (keys[i] == key) {
+                var old = (T) vals[i];
+                vals[i] = v;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        vals[i] = v;
+        if (++size * 3 > keys.length * 2)
+            resize();
+        return null;
+    }
+
+    /**
+     * 移除数据
+     *
+     * @return 被移除的数据
+     */
+    @Nullable
+    T remove(long key) {
+        int i = indexOf(key);
+        if (i < 0)
+            return null;
+        var old = (T) vals[i];
+        deleteAt(i);
+        return old;
+    }
+
+    /**
+     * 仅在数据为 v 时移除
+     *
+     * @return 是否移除
+     */
+    boolean remove(long key, @NotNull Object v) {
+        int i = indexOf(key);
+        if (i < 0 || vals[i] != v)
+            return false;
+        deleteAt(i);
+        return true;
+    }
+
+    /** 遍历数据 */
+    void forEachValue(@NotNull Consumer<T> action) {
+        for ( var v : vals ) {
+            if (v != null)
+                action.accept((T) v);
+        }
+    }
+
+    /**
+     * 遍历键与数据
+     *
+     * @since 0.0.2
+     */
+    void forEach(@NotNull ObjLongConsumer<T> action) {
+        for ( int i = 0; i < vals.length; i++ ) {
+            if (vals[i] != null)
+                action.accept((T) vals[i], keys[i]);
+        }
+    }
+
+    /** 清空数据 */
+    void clear() {
+        Arrays.fill(vals, null);
+        size = 0;
+    }
+
+    /** 数据数量 */
+    int size() { return size; }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 键所在的位置，不存在时为 -1
+    private
+    int indexOf(long key) {
+        int mask = keys.length - 1;
+        for ( int i = mix(key) & mask; vals[i] != null; i = (i + 1) & mask ) {
+            if (keys[i] == key)
+                return i;
+        }
+        return -1;
+    }
+
+    // 移除位置 i 的数据，并将后续不在理想位置的记录前移
+    private
+    void deleteAt(int i) {
+        int mask = keys.length - 1;
+        int j = i;
+        while( true ){
+            j = (j + 1) & mask;
+            if (vals[j] == null)
+                break;
+
+            int ideal = mix(keys[j]) & mask;
+            // 理想位置不在 (i, j] 中的记录可以前移到 i
+            if (i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j)) {
+                keys[i] = keys[j];
+                vals[i] = vals[j];
+                i = j;
+            }
+        }
+        vals[i] = null;
+        size--;
+    }
+
+    // 扩容为两倍
+    private
+    void resize() {
+        var oks = keys;
+        var ovs = vals;
+        var ks = new long[oks.length << 1];
+        var vs = new Object[ovs.length << 1];
+        int mask = ks.length - 1;
+        for ( int n = 0; n < oks.length; n++ ) {
+            if (ovs[n] == null)
+                continue;
+            int i = mix(oks[n]) & mask;
+            while( vs[i] != null )
+                i = (i + 1) & mask;
+            ks[i] = oks[n];
+            vs[i] = ovs[n];
+        }
+        keys = ks;
+        vals = vs;
+    }
+
+    // 打散键
+    private static
+    int mix(long key) {
+        var h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
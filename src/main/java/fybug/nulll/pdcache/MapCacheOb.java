@@ -5,8 +5,12 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.ref.Cleaner;
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import fybug.nulll.pdconcurrent.SyLock;
 
@@ -15,24 +19,81 @@ import fybug.nulll.pdconcurrent.SyLock;
  * <p>
  * 使用键来获取缓存的缓存工具，数据对象可实现 {@link CanClean} 接口返回数据回收时的处理<br/>
  * 缓存关联的是映射的值，与键无关，在值对象达到回收条件时对应的键会从缓存中移除<br/>
- * 包含缓存的引用映射，缓存获取方法 {@link #getdata(K key)}，缓存回收接口映射以及并发管理
+ * 包含缓存的引用映射，缓存获取方法 {@link #getdata(K key)}，缓存回收接口映射以及并发管理<br/>
+ * 引用注册在 {@link CacheGcThrea} 的共享回收队列中，被回收的键由排空线程批量移除，
+ * 只有实现了 {@link CanClean} 的数据会记录在回收接口映射中
+ * <br/><br/>
+ * 可指定分段数量，数据按键的哈希分布到各自独立加锁的分段 {@link Segment} 中，不同分段的操作互不阻塞<br/>
+ * 默认只有一个分段，此时 {@link #map}、{@link #cleanableMap}、{@link #LOCK} 即为全部数据
+ * <br/><br/>
+ * 数据缓存区使用 {@link ConcurrentHashMap}，命中时直接读取，不占用锁也不产生对象，
+ * 只有未命中、放入、移除和回收时才会占用分段的锁
+ * <br/><br/>
+ * 可使用 {@link #setMaximumSize(long)} 限制缓存数量，超出时按 W-TinyLFU 策略淘汰访问频率低的数据，
+ * 命中只会记录到有损的读缓冲区中，不影响无锁读取
+ * <br/><br/>
+ * 开启统计后可通过 {@link #stats()} 获取命中、生成、回收、移除与淘汰的统计，统计使用分条计数，不影响无锁读取
+ * <br/><br/>
+ * 可使用 {@link #setRemovalListener(RemovalListener)} 监听数据的移除，锁中只记录通知，监听器由 {@link RemovalBus} 在锁外异步调用
+ * <br/><br/>
+ * 绑定 {@link DiskTier} 时磁盘的读写都在分段的锁外进行
  *
  * @author fybug
- * @version 0.0.2
+ * @version 0.0.10
  * @since PDCache 0.0.1
  */
 public abstract
 class MapCacheOb<K, V> {
     /** 缓存引用类型 */
     protected final Class<? extends Reference<V>> refClass;
-    /** 数据缓存区 */
-    protected final Map<K, Reference<V>> map = new HashMap<>();
+    /**
+     * 缓存方式，构造时由引用类型确定，放入数据时直接使用
+     *
+     * @since 0.0.5
+     */
+    @NotNull protected volatile ReferenceStrategy refStrategy;
+    /** 数据缓存区，分段时为第一个分段的缓存区 */
+    protected final Map<K, Reference<V>> map;
 
-    /** 回收接口存放区 */
-    protected final Map<K, Cleaner.Cleanable> cleanableMap = new HashMap<>();
+    /** 回收接口存放区，仅存放有回收方法的数据，分段时为第一个分段的存放区 */
+    protected final Map<K, Cleaner.Cleanable> cleanableMap;
 
-    /** 并发管理 */
+    /** 并发管理，分段时为第一个分段的并发管理 */
     protected final SyLock LOCK;
+    /**
+     * 数据分段
+     *
+     * @since 0.0.3
+     */
+    protected final Segment<K, V>[] segments;
+    /** 分段掩码 */
+    private final int segmentMask;
+    /**
+     * 回收处理器
+     *
+     * @since 0.0.3
+     */
+    protected final CacheGcThrea.Recycler recycler = this::recycle;
+    /** 容量淘汰策略，未限制数量时为 null */
+    @Nullable private volatile TinyLfuPolicy<K> policy;
+    /**
+     * 统计计数器，未开启统计时为 null
+     *
+     * @since 0.0.4
+     */
+    @Nullable protected volatile StatsCounter statsCounter;
+    /**
+     * 磁盘二级缓存，未绑定时为 null
+     *
+     * @since 0.0.7
+     */
+    @Nullable protected volatile DiskTier<K, V> diskTier;
+    /**
+     * 移除通知总线，未绑定监听器时为 null
+     *
+     * @since 0.0.8
+     */
+    @Nullable protected volatile RemovalBus<K, V> removalBus;
 
     //----------------------------------------------------------------------------------------------
 
@@ -42,68 +103,349 @@ class MapCacheOb<K, V> {
 
     /** 构造缓存，指定缓存方式和并发管理 */
     public
-    MapCacheOb(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock) {
+    MapCacheOb(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock)
+    { this(refc, syLock, 1); }
+
+    /**
+     * 构造缓存，指定缓存方式、并发管理和分段数量
+     * <p>
+     * 分段数量会向上取整为 2 的幂，第一个分段使用传入的并发管理，其余分段使用同类型的新实例
+     *
+     * @param refc     缓存引用类型
+     * @param syLock   并发管理
+     * @param segments 分段数量
+     *
+     * @since 0.0.3
+     */
+    public
+    MapCacheOb(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments) {
         refClass = (Class<Reference<V>>) refc;
+        refStrategy = ReferenceStrategy.of(refc);
+
+        var n = segmentSize(segments);
+        this.segments = new Segment[n];
+        this.segments[0] = new Segment<>(syLock);
+        for ( int i = 1; i < n; i++ )
+            this.segments[i] = new Segment<>(newLock(syLock));
+        segmentMask = n - 1;
+
+        map = this.segments[0].map;
+        cleanableMap = this.segments[0].cleanableMap;
         LOCK = syLock;
     }
 
+    // 分段数量取整
+    private static
+    int segmentSize(int segments) {
+        if (segments <= 1)
+            return 1;
+        return Integer.highestOneBit(Math.min(segments, 1 << 16) - 1) << 1;
+    }
+
+    // 生成同类型的并发管理
+    @NotNull
+    private static
+    SyLock newLock(@NotNull SyLock syLock) {
+        try {
+            return syLock.getClass().getConstructor().newInstance();
+        } catch ( Exception e ) {
+            return SyLock.newRWLock();
+        }
+    }
+
+    /**
+     * 获取键所在的分段
+     *
+     * @param key 缓存的键
+     *
+     * @return 对应的分段
+     *
+     * @since 0.0.3
+     */
+    @NotNull
+    protected final
+    Segment<K, V> segment(@NotNull K key) { return segments[segmentIndex(key)]; }
+
+    // 键所在的分段下标
+    private
+    int segmentIndex(@NotNull K key) {
+        if (segmentMask == 0)
+            return 0;
+        var h = key.hashCode();
+        return (h ^ (h >>> 16)) & segmentMask;
+    }
+
+    /**
+     * 设置缓存方式
+     * <p>
+     * 仅影响之后放入的数据，应在放入数据前设置
+     *
+     * @since 0.0.5
+     */
+    protected
+    void setReferenceStrategy(@NotNull ReferenceStrategy strategy) { refStrategy = strategy; }
+
+    /**
+     * 限制缓存数量
+     * <p>
+     * 超出数量时按 W-TinyLFU 策略淘汰数据，应在放入数据前设置<br/>
+     * 被淘汰的数据与被主动移除的数据一样会加入回收队列，使用软引用或弱引用时数据仍可能提前被回收
+     *
+     * @param maximumSize 最大数量，小于等于 0 为不限制
+     *
+     * @since 0.0.4
+     */
+    protected
+    void setMaximumSize(long maximumSize)
+    { policy = maximumSize > 0 ? new TinyLfuPolicy<>(maximumSize) : null; }
+
+    // 淘汰策略给出的数据
+    private
+    void evict(@NotNull List<TinyLfuPolicy.Evict<K>> evicts) {
+        var s = statsCounter;
+        for ( var e : evicts ) {
+            var seg = segment(e.key);
+            seg.LOCK.write(() -> {
+                // 仅在还是被淘汰的引用时移除
+                if (seg.map.remove(e.key, e.ref)) {
+                    var ref = (Reference<V>) e.ref;
+                    removed(e.key, ref.get(), RemovalCause.SIZE);
+                    ref.enqueue();
+                    if (s != null)
+                        s.recordEviction(1);
+                }
+            });
+        }
+    }
+
+    /**
+     * 绑定磁盘二级缓存
+     * <p>
+     * 之后放入的数据会同时写入磁盘，应在放入数据前设置
+     *
+     * @param diskTier 磁盘二级缓存，为 null 则解除绑定
+     *
+     * @since 0.0.7
+     */
+    protected
+    void setDiskTier(@Nullable DiskTier<K, V> diskTier) { this.diskTier = diskTier; }
+
+    /**
+     * 从磁盘二级缓存中取回数据
+     * <p>
+     * 取回的数据会重新放入缓存，在锁外调用
+     *
+     * @param key 缓存的键
+     *
+     * @return 取回的数据，没有绑定或没有数据时为 null
+     *
+     * @since 0.0.7
+     */
+    @Nullable
+    protected final
+    V promote(@NotNull K key) throws Exception {
+        var t = diskTier;
+        if (t == null)
+            return null;
+
+        var v = t.get(key);
+        if (v != null)
+            put(key, v, false);
+        return v;
+    }
+
+    /**
+     * 绑定移除监听器
+     * <p>
+     * 使用默认的投递线程池，应在放入数据前设置
+     *
+     * @param listener 移除监听器，为 null 则解除绑定
+     *
+     * @since 0.0.8
+     */
+    protected
+    void setRemovalListener(@Nullable RemovalListener<? super K, ? super V> listener)
+    { removalBus = listener == null ? null : new RemovalBus<>(listener); }
+
+    /**
+     * 发送移除通知
+     * <p>
+     * 只记录通知，可在锁中调用
+     *
+     * @param key   数据的键
+     * @param value 数据，无法取回时为 null
+     * @param cause 移除的原因
+     *
+     * @since 0.0.8
+     */
+    protected final
+    void removed(@NotNull K key, @Nullable V value, @NotNull RemovalCause cause) {
+        var b = removalBus;
+        if (b != null)
+            b.notify(key, value, cause);
+    }
+
+    /**
+     * 设置是否开启统计
+     *
+     * @since 0.0.4
+     */
+    protected
+    void setRecordStats(boolean recordStats) { statsCounter = recordStats ? new StatsCounter() : null; }
+
+    /**
+     * 获取统计快照
+     *
+     * @return 当前的统计，未开启统计时只有当前数量
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    public
+    CacheStats stats() {
+        var s = statsCounter;
+        return s == null ? CacheStats.empty(size()) : s.snapshot(size());
+    }
+
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * 直接读取缓存数据
+     * <p>
+     * 不占用锁，数据不存在或正在释放时返回 null
+     *
+     * @param key 缓存的键
+     *
+     * @return 当前缓存的数据
+     *
+     * @since 0.0.3
+     */
+    @Nullable
+    protected final
+    V peekdata(@NotNull K key) {
+        var ref = segment(key).map.get(key);
+        if (ref == null)
+            return null;
+
+        var v = ref.get();
+        var p = policy;
+        if (v != null && p != null)
+            p.onRead(key);
+        return v;
+    }
+
     /**
      * 获取缓存数据
+     * <p>
+     * 与 {@link #getdata(K)} 相同，但只返回数据<br/>
+     * 命中时不占用锁，也不产生额外的对象
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存数据
+     *
+     * @since 0.0.6
+     */
+    @Nullable
+    protected
+    V getvalue(@NotNull K key) throws Exception {
+        var seg = segment(key);
+        var ref = seg.map.get(key);
+        V v;
+        if (ref != null && (v = ref.get()) != null) {
+            hit(key);
+            return v;
+        }
+
+        var s = statsCounter;
+        if (s != null)
+            s.recordMisses(1);
+        return awaitdata(seg, key, new Enty()).val;
+    }
+
+    /**
+     * 获取缓存数据
+     * <p>
+     * 先直接读取，未命中时才会占用锁等待数据释放完成<br/>
+     * 数据被彻底释放后在锁外调用 {@link #emptyData(K)}
      *
      * @param key 缓存的键
      *
      * @return 缓存记录对象
      *
      * @see Enty
+     * @see #getvalue(K)
      */
     @NotNull
     protected
     MapCacheOb<K, V>.Enty getdata(@NotNull K key) throws Exception {
         // 缓存记录对象
         final var enty = new Enty();
+        final var seg = segment(key);
 
         // get ref
-        LOCK.read(() -> {
-            enty.ref = map.get(key);
-            // 获取内容
-            if (enty.ref == null)
-                enty.val = null;
-            else
-                enty.val = enty.ref.get();
-        });
+        enty.ref = seg.map.get(key);
+        // 获取内容
+        if (enty.ref != null && (enty.val = enty.ref.get()) != null) {
+            hit(key);
+            return enty;
+        }
 
+        var s = statsCounter;
+        if (s != null)
+            s.recordMisses(1);
+        return awaitdata(seg, key, enty);
+    }
+
+    // 记录命中
+    private
+    void hit(@NotNull K key) {
+        var p = policy;
+        if (p != null)
+            p.onRead(key);
+        var s = statsCounter;
+        if (s != null)
+            s.recordHits(1);
+    }
+
+    // 等待数据释放完成，未命中时调用
+    @NotNull
+    private
+    MapCacheOb<K, V>.Enty awaitdata(@NotNull Segment<K, V> seg, @NotNull K key, @NotNull Enty enty)
+            throws Exception
+    {
         /* 检查获取的数据 */
-        if (enty.val == null) {
-            var b = true;
-            /* 自旋，直到数据完整 */
-            while( b ){
-                b = LOCK.trywrite(Exception.class, () -> {
-                    /* 当前是否正在释放 */
-                    if ((enty.ref = map.get(key)) == null || (enty.val = enty.ref.get()) == null) {
-                        /* 扫尾接口是否运行完成 */
-                        if (cleanableMap.get(key) == null) {
-                            // 空数据处理
-                            enty.val = emptyData(key);
-                            enty.ref = map.get(key);
-
-                            // 被彻底释放，完整的空数据
-                            return false;
-                        }
-                        // 数据不完整，继续等待
-                        return true;
-                    } else
-                        // 数据完整
+        var b = true;
+        /* 自旋，直到数据完整 */
+        while( b ){
+            b = seg.LOCK.trywrite(Exception.class, () -> {
+                /* 当前是否正在释放 */
+                if ((enty.ref = seg.map.get(key)) == null || (enty.val = enty.ref.get()) == null) {
+                    /* 扫尾接口是否运行完成 */
+                    if (seg.cleanableMap.get(key) == null)
+                        // 被彻底释放，完整的空数据
                         return false;
-                });
-            }
+                    // 数据不完整，继续等待
+                    return true;
+                } else
+                    // 数据完整
+                    return false;
+            });
+        }
+
+        /* 空数据处理，不占用锁 */
+        if (enty.val == null) {
+            if ((enty.val = promote(key)) == null)
+                enty.val = emptyData(key);
+            enty.ref = seg.map.get(key);
         }
         return enty;
     }
 
     /**
      * 无数据时的数据
+     * <p>
+     * 在锁外调用，可能会被多个线程同时调用
      *
      * @return 在没有缓存时返回的数据
      */
@@ -113,6 +455,75 @@ class MapCacheOb<K, V> {
 
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * 批量获取缓存数据
+     * <p>
+     * 命中的数据直接读取，未命中的键统一交由 {@link #emptyAll(Collection)} 处理
+     *
+     * @param keys 缓存的键
+     *
+     * @return 键与数据的映射，不包含没有数据的键
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    protected
+    Map<K, V> getalldata(@NotNull Collection<? extends K> keys) throws Exception {
+        var res = new HashMap<K, V>(keys.size() * 4 / 3 + 1);
+        List<K> miss = null;
+
+        for ( K key : keys ) {
+            var v = peekdata(key);
+            if (v != null || (v = promote(key)) != null)
+                res.put(key, v);
+            else {
+                if (miss == null)
+                    miss = new ArrayList<>();
+                miss.add(key);
+            }
+        }
+
+        var s = statsCounter;
+        if (s != null) {
+            var m = miss == null ? 0 : miss.size();
+            s.recordHits(res.size());
+            s.recordMisses(m);
+        }
+
+        // 未命中处理，不占用锁
+        if (miss != null)
+            emptyAll(miss).forEach((k, v) -> {
+                if (v != null)
+                    res.put(k, v);
+            });
+        return res;
+    }
+
+    /**
+     * 批量处理无数据的键
+     * <p>
+     * 在锁外调用，默认逐个调用 {@link #emptyData(K)}
+     *
+     * @param keys 没有数据的键
+     *
+     * @return 键与数据的映射
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    protected
+    Map<K, V> emptyAll(@NotNull List<K> keys) throws Exception {
+        var res = new HashMap<K, V>();
+        for ( K key : keys ) {
+            var v = emptyData(key);
+            if (v != null)
+                res.put(key, v);
+        }
+        return res;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
     /**
      * 更新缓存内容
      *
@@ -120,48 +531,143 @@ class MapCacheOb<K, V> {
      * @param v   缓存内容
      */
     protected
-    void putdata(@NotNull K key, @NotNull V v) throws Exception {
-        final var enty = new Enty();
+    void putdata(@NotNull K key, @NotNull V v) throws Exception { put(key, v, true); }
 
-        /* 检查获取的数据 */
-        var b = true;
+    // 放入数据，toDisk 为是否同时写入磁盘二级缓存
+    private
+    void put(@NotNull K key, @NotNull V v, boolean toDisk) throws Exception {
+        final var seg = segment(key);
         /* 自旋，直到数据完整 */
-        while( b ){
-            b = LOCK.trywrite(Exception.class, () -> {
-                /* 正在释放 */
-                if (((enty.ref = map.get(key)) != null && (enty.val = enty.ref.get()) == null) &&
-                    cleanableMap.get(key) != null)
-                    // 等待释放完成
-                    return true;
+        while( seg.LOCK.trywrite(Exception.class, () -> putref(seg, key, v)) )
+            ;
+        if (toDisk)
+            toDisk(seg, key, v);
+        written(key);
+    }
 
-                /* 获取对象的回收方法 */
-                Runnable clean;
-                if (v instanceof CanClean)
-                    clean = ((CanClean) v).getclean();
-                else
-                    clean = null;
-
-                /* 注册回收方法 */
-                cleanableMap.put(key, CacheGcThrea.binClean(v, () -> LOCK.write(() -> {
-                    if (clean != null)
-                        clean.run();
-                    cleanableMap.remove(key);
-                    map.remove(key);
-                })));
-
-                // 放入缓存
-                map.put(key, refClass.getConstructor(Object.class).newInstance(v));
-                // 处理完成
-                return false;
-            });
+    /**
+     * 在锁外写入磁盘二级缓存
+     * <p>
+     * 写入期间数据被替换或移除时丢弃磁盘中的数据，防止较早的写入覆盖较新的数据
+     *
+     * @since 0.0.9
+     */
+    private
+    void toDisk(@NotNull Segment<K, V> seg, @NotNull K key, @NotNull V v) {
+        var t = diskTier;
+        if (t == null)
+            return;
+        t.put(key, v);
+        var ref = seg.map.get(key);
+        if (ref == null || ref.get() != v)
+            t.remove(key);
+    }
+
+    // 通知淘汰策略数据已写入，在锁外调用
+    private
+    void written(@NotNull K key) {
+        var p = policy;
+        if (p == null)
+            return;
+        var ref = segment(key).map.get(key);
+        if (ref != null)
+            evict(p.onWrite(key, ref));
+    }
+
+    /**
+     * 批量更新缓存内容
+     * <p>
+     * 按分段分组，每个分段只占用一次锁，正在释放的键会在下一轮重试
+     *
+     * @param data 缓存的键与内容
+     *
+     * @since 0.0.4
+     */
+    protected
+    void putalldata(@NotNull Map<? extends K, ? extends V> data) throws Exception {
+        if (data.isEmpty())
+            return;
+
+        // 按分段分组
+        var group = new HashMap<Segment<K, V>, Map<K, V>>();
+        data.forEach((k, v) -> group.computeIfAbsent(segment(k), s -> new HashMap<>()).put(k, v));
+
+        for ( var e : group.entrySet() ) {
+            var seg = e.getKey();
+            var wait = e.getValue();
+            /* 自旋，直到数据完整 */
+            while( !wait.isEmpty() )
+                seg.LOCK.trywrite(Exception.class, () -> {
+                    var iter = wait.entrySet().iterator();
+                    while( iter.hasNext() ){
+                        var en = iter.next();
+                        if (!putref(seg, en.getKey(), en.getValue()))
+                            iter.remove();
+                    }
+                });
         }
+
+        // 写入磁盘
+        if (diskTier != null)
+            data.forEach((k, v) -> toDisk(segment(k), k, v));
+        if (policy != null)
+            data.keySet().forEach(this::written);
+    }
+
+    /**
+     * 在分段中放入数据
+     * <p>
+     * 需要在分段的写锁中运行，不写入磁盘二级缓存
+     *
+     * @return 数据是否正在释放，需要等待
+     *
+     * @since 0.0.4
+     */
+    private
+    boolean putref(@NotNull Segment<K, V> seg, @NotNull K key, @NotNull V v) throws Exception {
+        Reference<V> ref;
+        /* 正在释放 */
+        if (((ref = seg.map.get(key)) != null && ref.get() == null) && seg.cleanableMap.get(key) != null)
+            // 等待释放完成
+            return true;
+
+        /* 获取对象的回收方法 */
+        Runnable clean;
+        if (v instanceof CanClean)
+            clean = ((CanClean) v).getclean();
+        else
+            clean = null;
+
+        /* 被替换的数据 */
+        V old = ref == null ? null : ref.get();
+        // 放入同一个对象，保留原有的引用
+        if (old == v)
+            return false;
+        if (old != null)
+            removed(key, old, RemovalCause.REPLACED);
+
+        // 生成引用
+        var rec = refStrategy.bind(v, recycler, key, clean);
+        /* 注册回收方法，没有时移除被替换数据的记录，防止等待不会完成的释放 */
+        if (clean != null)
+            seg.cleanableMap.put(key, rec);
+        else
+            seg.cleanableMap.remove(key);
+
+        // 放入缓存
+        seg.map.put(key, (Reference<V>) rec.target());
+        // 被替换的引用主动加入回收队列，与移除相同
+        if (ref != null)
+            ref.enqueue();
+        // 处理完成
+        return false;
     }
 
     /**
      * 移除缓存
      * <p>
      * 强制释放缓存内容<br/>
-     * 将缓存内容主动加入回收队列
+     * 从缓存区中移除后将缓存内容主动加入回收队列
      *
      * @param key 要释放的键
      *
@@ -170,35 +676,132 @@ class MapCacheOb<K, V> {
     @Nullable
     protected
     V removeData(@NotNull K key) {
+        var v = invalidate(key, RemovalCause.EXPLICIT);
+        var s = statsCounter;
+        if (v != null && s != null)
+            s.recordRemoval(1);
+        return v;
+    }
+
+    /**
+     * 由缓存内部移除数据
+     * <p>
+     * 与 {@link #removeData(K)} 相同地释放内存与磁盘中的数据，但不计入移除统计，移除通知使用指定的原因
+     *
+     * @param key   要释放的键
+     * @param cause 移除通知的原因
+     *
+     * @return 释放的内容
+     *
+     * @since 0.0.10
+     */
+    @Nullable
+    protected final
+    V invalidate(@NotNull K key, @NotNull RemovalCause cause) {
         final var cac = new Object() {
             Reference<V> ref;
             V v;
         };
+        final var seg = segment(key);
 
-        return LOCK.write(() -> {
+        var v = seg.LOCK.write(() -> {
             // 已在释放
-            if ((cac.ref = map.get(key)) == null || (cac.v = cac.ref.get()) == null)
+            if ((cac.ref = seg.map.get(key)) == null || (cac.v = cac.ref.get()) == null)
                 return null;
 
             // 手动释放
+            seg.map.remove(key, cac.ref);
             cac.ref.enqueue();
+            removed(key, cac.v, cause);
             return cac.v;
         });
+        // 磁盘中的数据不受内存中的释放影响，在锁外移除
+        var t = diskTier;
+        if (t != null)
+            t.remove(key);
+        return v;
     }
 
     /** 清空缓存数据 */
     public
     void clear() {
-        // 释放
-        LOCK.write(() -> {
-            map.values().forEach(v -> {
-                // 对象被释放
-                if (v == null || v.get() == null)
-                    return;
-                v.enqueue();
+        // 逐段释放
+        for ( var seg : segments )
+            seg.LOCK.write(() -> {
+                seg.map.forEach((k, v) -> {
+                    V val;
+                    // 对象被释放
+                    if (v == null || (val = v.get()) == null)
+                        return;
+                    v.enqueue();
+                    removed(k, val, RemovalCause.CLEARED);
+                });
+                seg.map.clear();
             });
-            map.clear();
-        });
+        if (policy != null)
+            policy.clear();
+        var t = diskTier;
+        if (t != null)
+            t.clear();
+    }
+
+    /**
+     * 获取缓存数量
+     * <p>
+     * 逐段统计，不占用锁，包含已被回收但还未被排空线程移除的键
+     *
+     * @return 所有分段中的键数量
+     *
+     * @since 0.0.3
+     */
+    public
+    int size() {
+        var size = 0;
+        for ( var seg : segments )
+            size += seg.map.size();
+        return size;
+    }
+
+    /**
+     * 处理被回收的缓存
+     * <p>
+     * 由 {@link CacheGcThrea} 的排空线程批量调用，一批数据在每个分段只占用一次锁<br/>
+     * 仅移除仍指向被回收引用的键，已被放入新数据的键不受影响，同时从淘汰策略中移除<br/>
+     * 仍在缓存区中的引用为被 GC 回收的数据，主动释放的数据在释放时已经移出缓存区
+     *
+     * @param refs 被回收的记录
+     *
+     * @since 0.0.3
+     */
+    protected
+    void recycle(@NotNull List<CacheGcThrea.Recyclable> refs) {
+        var p = policy;
+        if (p != null)
+            refs.forEach(r -> p.onRemove((K) r.key(), r.target()));
+
+        var s = statsCounter;
+        if (segmentMask == 0) {
+            var n = segments[0].recycle(refs, removalBus);
+            if (s != null)
+                s.recordCollected(n);
+            return;
+        }
+
+        // 按分段分组
+        var group = new List[segments.length];
+        for ( var r : refs ) {
+            var i = segmentIndex((K) r.key());
+            if (group[i] == null)
+                group[i] = new ArrayList<>();
+            group[i].add(r);
+        }
+        var n = 0;
+        for ( int i = 0; i < group.length; i++ ) {
+            if (group[i] != null)
+                n += segments[i].recycle(group[i], removalBus);
+        }
+        if (s != null)
+            s.recordCollected(n);
     }
 
     /*--------------------------------------------------------------------------------------------*/
@@ -207,11 +810,17 @@ class MapCacheOb<K, V> {
      * <h2> {@link MapCacheOb} 子类通用构造工具.</h2>
      * <ul>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
+     * <li>使用 {@link #referenceStrategy(ReferenceStrategy)} 指定自定义的缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #maximumSize(long)} 限制缓存数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #diskTier(DiskTier)} 绑定磁盘二级缓存</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.7
      * @since MapCacheOb 0.0.1
      */
     @SuppressWarnings( "unchecked" )
@@ -219,14 +828,65 @@ class MapCacheOb<K, V> {
     class Build<K, V, B extends Build<K, V, B>> {
         /** 缓存引用类型 */
         protected Class<? extends Reference> refernce = SoftReference.class;
+        /**
+         * 缓存方式
+         *
+         * @since MapCacheOb.Build 0.0.5
+         */
+        protected ReferenceStrategy referenceStrategy = ReferenceStrategy.SOFT;
         /** 并发管理 */
         protected SyLock lockBy = SyLock.newRWLock();
+        /**
+         * 分段数量
+         *
+         * @since MapCacheOb.Build 0.0.2
+         */
+        protected int segments = 1;
+        /**
+         * 最大数量，小于等于 0 为不限制
+         *
+         * @since MapCacheOb.Build 0.0.3
+         */
+        protected long maximumSize = 0;
+        /**
+         * 是否开启统计
+         *
+         * @since MapCacheOb.Build 0.0.4
+         */
+        protected boolean recordStats = false;
+        /**
+         * 磁盘二级缓存
+         *
+         * @since MapCacheOb.Build 0.0.6
+         */
+        @Nullable protected DiskTier<K, V> diskTier;
+        /**
+         * 移除监听器
+         *
+         * @since MapCacheOb.Build 0.0.7
+         */
+        @Nullable protected RemovalListener<? super K, ? super V> removalListener;
 
         /** 设置缓存引用类型 */
         @NotNull
         public
         B refernce(Class<? extends Reference> refernce) {
             this.refernce = refernce;
+            this.referenceStrategy = ReferenceStrategy.of(refernce);
+            return (B) this;
+        }
+
+        /**
+         * 设置缓存方式
+         * <p>
+         * 用于 {@link ReferenceStrategy#custom} 等无法通过引用类型表示的方式
+         *
+         * @since MapCacheOb.Build 0.0.5
+         */
+        @NotNull
+        public
+        B referenceStrategy(@NotNull ReferenceStrategy strategy) {
+            this.referenceStrategy = strategy;
             return (B) this;
         }
 
@@ -238,6 +898,79 @@ class MapCacheOb<K, V> {
             return (B) this;
         }
 
+        /**
+         * 设置分段数量
+         * <p>
+         * 每个分段使用与 {@link #lockBy(SyLock)} 同类型的独立并发管理，数量会向上取整为 2 的幂
+         *
+         * @since MapCacheOb.Build 0.0.2
+         */
+        @NotNull
+        public
+        B segments(int segments) {
+            this.segments = segments;
+            return (B) this;
+        }
+
+        /**
+         * 限制缓存数量
+         * <p>
+         * 超出数量时按 W-TinyLFU 策略淘汰，缓存方式同时改为 {@link StrongReference}，
+         * 数据只会因为淘汰或移除而释放，可在之后调用 {@link #refernce(Class)} 改回其他方式
+         *
+         * @since MapCacheOb.Build 0.0.3
+         */
+        @NotNull
+        public
+        B maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            this.refernce = StrongReference.class;
+            this.referenceStrategy = ReferenceStrategy.STRONG;
+            return (B) this;
+        }
+
+        /**
+         * 开启统计
+         * <p>
+         * 统计使用分条计数，不会在读取时产生竞争
+         *
+         * @since MapCacheOb.Build 0.0.4
+         */
+        @NotNull
+        public
+        B recordStats() {
+            this.recordStats = true;
+            return (B) this;
+        }
+
+        /**
+         * 绑定磁盘二级缓存
+         * <p>
+         * 放入的数据同时写入磁盘，数据被回收或淘汰后从磁盘取回，关闭缓存时一并关闭
+         *
+         * @since MapCacheOb.Build 0.0.6
+         */
+        @NotNull
+        public
+        B diskTier(@NotNull DiskTier<K, V> diskTier) {
+            this.diskTier = diskTier;
+            return (B) this;
+        }
+
+        /**
+         * 绑定移除监听器
+         * <p>
+         * 数据因任何原因离开缓存后在锁外异步分批通知
+         *
+         * @since MapCacheOb.Build 0.0.7
+         */
+        @NotNull
+        public
+        B removalListener(@NotNull RemovalListener<? super K, ? super V> listener) {
+            this.removalListener = listener;
+            return (B) this;
+        }
+
         @NotNull
         public abstract
         MapCacheOb<K, V> build();
@@ -245,6 +978,55 @@ class MapCacheOb<K, V> {
 
     /*--------------------------------------------------------------------------------------------*/
 
+    /**
+     * <h2>数据分段.</h2>
+     * 每个分段拥有独立的数据缓存区 {@link #map}、回收接口存放区 {@link #cleanableMap} 和并发管理 {@link #LOCK}
+     *
+     * @author fybug
+     * @version 0.0.3
+     * @since MapCacheOb 0.0.3
+     */
+    protected static final
+    class Segment<K, V> {
+        /** 数据缓存区，可不加锁读取 */
+        public final Map<K, Reference<V>> map = new ConcurrentHashMap<>();
+        /** 回收接口存放区 */
+        public final Map<K, Cleaner.Cleanable> cleanableMap = new HashMap<>();
+        /** 并发管理 */
+        public final SyLock LOCK;
+
+        Segment(@NotNull SyLock lock) { LOCK = lock; }
+
+        /*
+         * 移除当前分段中被回收的键，返回被 GC 回收的数量
+         * 回收方法在锁外执行，完成后再移除回收记录，等待释放的读取在此之前不会生成新的数据
+         */
+        int recycle(@NotNull List<CacheGcThrea.Recyclable> refs, @Nullable RemovalBus<K, V> bus) {
+            var tracked = new ArrayList<CacheGcThrea.Recyclable>();
+            int n = LOCK.write(() -> {
+                var c = 0;
+                for ( var r : refs ) {
+                    var key = (K) r.key();
+                    if (map.remove(key, r.target())) {
+                        c++;
+                        if (bus != null)
+                            bus.notify(key, null, RemovalCause.COLLECTED);
+                    }
+                    if (cleanableMap.get(key) == r)
+                        tracked.add(r);
+                }
+                return c;
+            });
+
+            CacheGcThrea.cleanAll(refs);
+            if (!tracked.isEmpty())
+                LOCK.write(() -> tracked.forEach(r -> cleanableMap.remove((K) r.key(), r)));
+            return n;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
     /**
      * <h2>缓存记录类.</h2>
      * 记录缓存的引用对象 {@link #ref}<br/>
@@ -6,6 +6,7 @@ import java.lang.ref.Reference;
 
 import fybug.nulll.pdconcurrent.SyLock;
 import fybug.nulll.pdconcurrent.fun.tryConsumer;
+import lombok.Getter;
 
 /**
  * <h2>作用于内存中的数据缓存.</h2>
@@ -13,7 +14,7 @@ import fybug.nulll.pdconcurrent.fun.tryConsumer;
  * 追加的数据获取方法 {@link #get()}、{@link #get(tryConsumer)}
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.2
  * @since PDCache 0.0.1
  */
 public abstract
@@ -58,7 +59,17 @@ class MemoryCache<V> extends CacheOb<V> implements Closeable {
 
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * 是否被关闭
+     *
+     * @since 0.0.2
+     */
+    @Getter private volatile boolean isClose = false;
+
     @Override
     public
-    void close() { clear(); }
+    void close() {
+        isClose = true;
+        clear();
+    }
 }
@@ -3,6 +3,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.Closeable;
 import java.lang.ref.Reference;
+import java.util.Collection;
+import java.util.Map;
 
 import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdconcurrent.SyLock;
@@ -12,12 +14,12 @@ import lombok.Getter;
 /**
  * <h2>作用于内存中的数据映射缓存.</h2>
  * <p>
- * 追加的数据获取方法 {@link #get(K)}、{@link #get(K, tryBiConsumer)}<br/>
+ * 追加的数据获取方法 {@link #get(K)}、{@link #get(K, tryBiConsumer)}、{@link #getAll(Collection)}<br/>
  * 数据移除方法 {@link #remove(K)}<br/>
  * 缓存工具被关闭的时候会抛出 {@link CacheError}
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.5
  * @since PDCache 0.0.1
  */
 public abstract
@@ -29,10 +31,16 @@ class MemoryMapCache<K, V> extends MapCacheOb<K, V> implements Closeable {
     MemoryMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock)
     { super(refc, syLock); }
 
+    public
+    MemoryMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments)
+    { super(refc, syLock, segments); }
+
     //----------------------------------------------------------------------------------------------
 
     /**
      * 获取缓存数据
+     * <p>
+     * 命中时不占用锁
      *
      * @param key 缓存的键
      *
@@ -42,7 +50,7 @@ class MemoryMapCache<K, V> extends MapCacheOb<K, V> implements Closeable {
     V get(@NotNull K key) throws Exception, CacheError {
         if (isClose())
             throw new CacheError();
-        return getdata(key).val;
+        return getvalue(key);
     }
 
     /**
@@ -65,6 +73,25 @@ class MemoryMapCache<K, V> extends MapCacheOb<K, V> implements Closeable {
         return cache;
     }
 
+    /**
+     * 批量获取缓存数据
+     * <p>
+     * 命中的数据不占用锁，未命中的键统一处理
+     *
+     * @param keys 缓存的键
+     *
+     * @return 键与缓存数据的映射，不包含没有数据的键
+     *
+     * @since 0.0.3
+     */
+    @NotNull
+    public
+    Map<K, V> getAll(@NotNull Collection<? extends K> keys) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        return getalldata(keys);
+    }
+
     //----------------------------------------------------------------------------------------------
 
     /**
@@ -90,5 +117,8 @@ class MemoryMapCache<K, V> extends MapCacheOb<K, V> implements Closeable {
             return;
         isClose = true;
         clear();
+        var t = diskTier;
+        if (t != null)
+            t.close();
     }
 }
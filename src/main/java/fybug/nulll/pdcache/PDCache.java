@@ -2,9 +2,13 @@ package fybug.nulll.pdcache;
 import org.jetbrains.annotations.NotNull;
 
 import fybug.nulll.pdcache.memory.Cache;
+import fybug.nulll.pdcache.memory.IntMapCache;
+import fybug.nulll.pdcache.memory.LongMapCache;
 import fybug.nulll.pdcache.memory.MapCache;
+import fybug.nulll.pdcache.memory.OffHeapMapCache;
 import fybug.nulll.pdcache.memory.TimeMapCache;
 import fybug.nulll.pdcache.supplier.SCache;
+import fybug.nulll.pdcache.supplier.SLongMapCache;
 import fybug.nulll.pdcache.supplier.SMapCache;
 import lombok.experimental.UtilityClass;
 
@@ -14,7 +18,7 @@ import lombok.experimental.UtilityClass;
  * 提供所有缓存工具的快速构造索引。
  *
  * @author fybug
- * @version 0.0.2
+ * @version 0.0.3
  * @since PDCache 0.0.1 expander 1
  */
 @UtilityClass
@@ -91,4 +95,62 @@ class PDCache {
     public
     <K, V> TimeMapCache.Build<K, V> TimeMapCache(Class<K> kClass, Class<V> vClass)
     { return TimeMapCache.build(kClass, vClass); }
+
+    /**
+     * 缓存在堆外内存中的映射数据缓存
+     *
+     * @param kClass 键的类型
+     * @param vClass 数据类型
+     *
+     * @return OffHeapMapCacheBuild
+     *
+     * @see OffHeapMapCache
+     * @since PDCache 0.0.3
+     */
+    @NotNull
+    public
+    <K, V> OffHeapMapCache.Build<K, V> OffHeapMapCache(Class<K> kClass, Class<V> vClass)
+    { return OffHeapMapCache.build(kClass, vClass); }
+
+    /**
+     * 缓存在内存中的 long 键映射数据缓存
+     *
+     * @param vClass 数据类型
+     *
+     * @return LongMapCacheBuild
+     *
+     * @see LongMapCache
+     * @since PDCache 0.0.3
+     */
+    @NotNull
+    public
+    <V> LongMapCache.Build<V> LongMapCache(Class<V> vClass) { return LongMapCache.build(vClass); }
+
+    /**
+     * 缓存在内存中的 int 键映射数据缓存
+     *
+     * @param vClass 数据类型
+     *
+     * @return IntMapCacheBuild
+     *
+     * @see IntMapCache
+     * @since PDCache 0.0.3
+     */
+    @NotNull
+    public
+    <V> IntMapCache.Build<V> IntMapCache(Class<V> vClass) { return IntMapCache.build(vClass); }
+
+    /**
+     * 缓存在内存中的自填充 long 键映射数据缓存
+     *
+     * @param vClass 数据类型
+     *
+     * @return SLongMapCacheBuild
+     *
+     * @see SLongMapCache
+     * @since PDCache 0.0.3
+     */
+    @NotNull
+    public
+    <V> SLongMapCache.Build<V> SLongMapCache(Class<V> vClass) { return SLongMapCache.build(vClass); }
 }
@@ -0,0 +1,108 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+
+import fybug.nulll.pdconcurrent.fun.tryFunction;
+
+/**
+ * <h2>缓存方式.</h2>
+ * <p>
+ * 决定缓存中的数据以何种引用保存，并将引用注册到 {@link CacheGcThrea} 的共享回收队列中<br/>
+ * 提供下列方式：
+ * <ul>
+ *     <li>{@link #STRONG} 强引用，数据只会因为主动移除或数量限制而释放，引用不会被 GC 追踪</li>
+ *     <li>{@link #SOFT} 软引用，内存不足时回收</li>
+ *     <li>{@link #WEAK} 弱引用，没有其他强引用时回收</li>
+ *     <li>{@link #custom(tryFunction)} 使用自定义的引用，额外绑定一个跟踪引用</li>
+ * </ul>
+ * 缓存只在构造时确定一次缓存方式，放入数据时直接调用对应的构造方法，不使用反射
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see CacheGcThrea
+ * @since PDCache 0.0.3
+ */
+@FunctionalInterface
+public
+interface ReferenceStrategy {
+    /** 强引用 */
+    ReferenceStrategy STRONG =
+            (v, owner, key, clean) -> CacheGcThrea.register(new CacheGcThrea.StrongRef<>(v, owner, key, clean),
+                                                            clean);
+    /** 软引用 */
+    ReferenceStrategy SOFT =
+            (v, owner, key, clean) -> CacheGcThrea.register(new CacheGcThrea.SoftRef<>(v, owner, key, clean),
+                                                            clean);
+    /** 弱引用 */
+    ReferenceStrategy WEAK =
+            (v, owner, key, clean) -> CacheGcThrea.register(new CacheGcThrea.WeakRef<>(v, owner, key, clean),
+                                                            clean);
+
+    /**
+     * 生成注册于回收队列的缓存引用
+     *
+     * @param v     数据
+     * @param owner 被回收后负责清理的缓存
+     * @param key   数据对应的键
+     * @param clean 数据的回收方法，为空则不执行
+     *
+     * @return 回收记录，缓存中应存放 {@link CacheGcThrea.Recyclable#target()}
+     */
+    @NotNull
+    CacheGcThrea.Recyclable bind(@Nullable Object v, @NotNull CacheGcThrea.Recycler owner, @Nullable Object key,
+                                 @Nullable Runnable clean) throws Exception;
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 使用自定义的引用
+     * <p>
+     * 缓存中存放 {@code factory} 生成的引用，数据的回收由额外绑定的跟踪引用处理
+     *
+     * @param factory 引用生成方法，传入数据
+     *
+     * @return 缓存方式
+     */
+    @NotNull
+    static
+    ReferenceStrategy custom(@NotNull tryFunction<Object, ? extends Reference<?>, Exception> factory) {
+        return (v, owner, key, clean) -> CacheGcThrea.track(
+                new CacheGcThrea.TrackRef(v, owner, key, factory.apply(v), clean));
+    }
+
+    /**
+     * 获取引用类型对应的缓存方式
+     * <p>
+     * {@link SoftReference}、{@link WeakReference} 与 {@link StrongReference} 返回对应的常量，
+     * 其他类型查找一次 {@code (Object)} 构造方法后使用 {@link #custom(tryFunction)} 生成
+     *
+     * @param refc 引用类型
+     *
+     * @return 缓存方式
+     *
+     * @throws IllegalArgumentException 引用类型没有公开的 {@code (Object)} 构造方法
+     */
+    @NotNull
+    static
+    ReferenceStrategy of(@NotNull Class<? extends Reference> refc) {
+        if (refc == SoftReference.class)
+            return SOFT;
+        if (refc == WeakReference.class)
+            return WEAK;
+        if (refc == StrongReference.class)
+            return STRONG;
+
+        Constructor<? extends Reference> constructor;
+        try {
+            constructor = refc.getConstructor(Object.class);
+        } catch ( NoSuchMethodException e ) {
+            throw new IllegalArgumentException(refc.getName(), e);
+        }
+        return custom(constructor::newInstance);
+    }
+}
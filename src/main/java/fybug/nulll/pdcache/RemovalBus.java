@@ -0,0 +1,143 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>移除通知总线.</h2>
+ * <p>
+ * 缓存在锁中调用 {@link #notify(Object, Object, RemovalCause)} 只会将通知放入队列，不运行监听器<br/>
+ * 每个总线同时只有一个投递任务，在线程池中每次取出最多 {@link #BATCH} 条通知依次调用监听器，
+ * 还有剩余时重新提交，让出线程给其他缓存的投递任务
+ * <br/><br/>
+ * 默认使用共享的投递线程池，线程数量不超过处理器数量且最多 4 个，空闲时退出
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的数据类型
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see RemovalListener
+ * @since PDCache 0.0.3
+ */
+public final
+class RemovalBus<K, V> {
+    /** 每次投递的最大数量 */
+    public static final int BATCH = 256;
+    /** 默认的投递线程池 */
+    private static final Executor DEFAULT;
+
+    static {
+        var n = Math.min(4, Runtime.getRuntime().availableProcessors());
+        var id = new AtomicInteger();
+        var pool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            var t = new Thread(r, "PDCache-removal-" + id.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        DEFAULT = pool;
+    }
+
+    /** 监听器 */
+    private final RemovalListener<? super K, ? super V> listener;
+    /** 投递使用的线程池 */
+    private final Executor executor;
+    /** 等待投递的通知 */
+    private final ConcurrentLinkedQueue<Removal<K, V>> queue = new ConcurrentLinkedQueue<>();
+    /** 是否已有投递任务 */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** 使用默认的投递线程池 */
+    public
+    RemovalBus(@NotNull RemovalListener<? super K, ? super V> listener) { this(listener, DEFAULT); }
+
+    /** 指定投递使用的线程池 */
+    public
+    RemovalBus(@NotNull RemovalListener<? super K, ? super V> listener, @NotNull Executor executor) {
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 发送通知
+     * <p>
+     * 只放入队列，可以在锁中调用
+     *
+     * @param key   数据的键
+     * @param value 数据，无法取回时为 null
+     * @param cause 移除的原因
+     */
+    public
+    void notify(@Nullable K key, @Nullable V value, @NotNull RemovalCause cause) {
+        queue.add(new Removal<>(key, value, cause));
+        schedule();
+    }
+
+    /**
+     * 获取等待投递的数量
+     *
+     * @return 还未调用监听器的通知数量
+     */
+    public
+    int pending() { return queue.size(); }
+
+    // 提交投递任务，已有任务时跳过
+    private
+    void schedule() {
+        if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+            return;
+        try {
+            executor.execute(this::drain);
+        } catch ( RejectedExecutionException e ) {
+            // 留在队列中，等待下一次通知时提交
+            scheduled.set(false);
+        }
+    }
+
+    // 投递一批通知
+    private
+    void drain() {
+        var batch = new ArrayList<Removal<K, V>>(Math.min(BATCH, queue.size()));
+        Removal<K, V> r;
+        while( batch.size() < BATCH && (r = queue.poll()) != null )
+            batch.add(r);
+
+        for ( var e : batch ) {
+            try {
+                listener.onRemoval(e.key, e.value, e.cause);
+            } catch ( Throwable ignored ) {
+                // 不影响之后的通知
+            }
+        }
+
+        scheduled.set(false);
+        // 还有剩余或期间有新的通知
+        schedule();
+    }
+
+    // 一条通知
+    private static final
+    class Removal<K, V> {
+        final K key;
+        final V value;
+        final RemovalCause cause;
+
+        Removal(@Nullable K key, @Nullable V value, @NotNull RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+}
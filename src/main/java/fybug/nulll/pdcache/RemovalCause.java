@@ -0,0 +1,32 @@
+package fybug.nulll.pdcache;
+/**
+ * <h2>数据移除的原因.</h2>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see RemovalListener
+ * @since PDCache 0.0.3
+ */
+public
+enum RemovalCause {
+    /** 被主动移除 */
+    EXPLICIT,
+    /** 被放入的新数据替换 */
+    REPLACED,
+    /** 引用被 GC 回收 */
+    COLLECTED,
+    /** 超过存活时间 */
+    EXPIRED,
+    /** 超出数量或容量限制被淘汰 */
+    SIZE,
+    /** 清空缓存 */
+    CLEARED;
+
+    /**
+     * 是否为缓存自身移除的数据
+     *
+     * @return 被回收、过期或淘汰时为 true
+     */
+    public
+    boolean wasEvicted() { return this == COLLECTED || this == EXPIRED || this == SIZE; }
+}
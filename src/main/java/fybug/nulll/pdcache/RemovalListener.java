@@ -0,0 +1,32 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h2>数据移除监听器.</h2>
+ * <p>
+ * 在缓存的构造工具中绑定，数据因任何原因离开缓存后都会收到通知<br/>
+ * 通知由 {@link RemovalBus} 在锁外异步分批投递，同一个缓存的通知按发生顺序依次调用，不会同时调用
+ *
+ * @param <K> 缓存的键类型
+ * @param <V> 缓存的数据类型
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see RemovalCause
+ * @since PDCache 0.0.3
+ */
+@FunctionalInterface
+public
+interface RemovalListener<K, V> {
+    /**
+     * 数据被移除
+     * <p>
+     * 抛出的异常会被忽略，不影响之后的通知
+     *
+     * @param key   数据的键，单个数据的缓存为 null
+     * @param value 数据，已被 GC 回收或无法取回时为 null
+     * @param cause 移除的原因
+     */
+    void onRemoval(@Nullable K key, @Nullable V value, @NotNull RemovalCause cause);
+}
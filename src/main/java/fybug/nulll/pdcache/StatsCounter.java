@@ -0,0 +1,108 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>缓存统计计数器.</h2>
+ * <p>
+ * 使用分条的 {@link LongAdder} 记录，并发记录时不会竞争同一个变量<br/>
+ * 由缓存在开启统计后持有，通过 {@link #snapshot(long)} 生成 {@link CacheStats} 快照
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @since PDCache 0.0.3
+ */
+public final
+class StatsCounter {
+    private final LongAdder hit = new LongAdder();
+    private final LongAdder miss = new LongAdder();
+    private final LongAdder loadSuccess = new LongAdder();
+    private final LongAdder loadFailure = new LongAdder();
+    private final LongAdder loadTime = new LongAdder();
+    private final LongAdder collected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder removal = new LongAdder();
+    private final LongAdder eviction = new LongAdder();
+    private final LongAdder negativeHit = new LongAdder();
+    private final LongAdder absent = new LongAdder();
+
+    /** 记录命中 */
+    public
+    void recordHits(int count) { hit.add(count); }
+
+    /** 记录未命中 */
+    public
+    void recordMisses(int count) { miss.add(count); }
+
+    /**
+     * 记录成功生成数据
+     *
+     * @param nanos 生成耗时（纳秒）
+     */
+    public
+    void recordLoadSuccess(long nanos) {
+        loadSuccess.increment();
+        loadTime.add(nanos);
+    }
+
+    /**
+     * 记录生成数据失败
+     *
+     * @param nanos 生成耗时（纳秒）
+     */
+    public
+    void recordLoadFailure(long nanos) {
+        loadFailure.increment();
+        loadTime.add(nanos);
+    }
+
+    /** 记录被 GC 回收的数据 */
+    public
+    void recordCollected(int count) { collected.add(count); }
+
+    /** 记录过期的数据 */
+    public
+    void recordExpired(int count) { expired.add(count); }
+
+    /** 记录被主动移除的数据 */
+    public
+    void recordRemoval(int count) { removal.add(count); }
+
+    /** 记录因数量限制被淘汰的数据 */
+    public
+    void recordEviction(int count) { eviction.add(count); }
+
+    /**
+     * 记录由缓存的无数据或失败结果直接返回的请求
+     *
+     * @since 0.0.2
+     */
+    public
+    void recordNegativeHits(int count) { negativeHit.add(count); }
+
+    /**
+     * 记录生成结果为无数据
+     *
+     * @since 0.0.2
+     */
+    public
+    void recordAbsent(int count) { absent.add(count); }
+
+    /**
+     * 生成统计快照
+     * <p>
+     * 各个计数分别读取，并发记录时快照中的数值之间可能有微小偏差
+     *
+     * @param size 当前缓存数量
+     *
+     * @return 统计快照
+     */
+    @NotNull
+    public
+    CacheStats snapshot(long size) {
+        return new CacheStats(hit.sum(), miss.sum(), loadSuccess.sum(), loadFailure.sum(), loadTime.sum(),
+                              collected.sum(), expired.sum(), removal.sum(), eviction.sum(), negativeHit.sum(),
+                              absent.sum(), size);
+    }
+}
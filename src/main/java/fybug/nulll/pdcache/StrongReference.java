@@ -0,0 +1,50 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * <h2>强引用.</h2>
+ * <p>
+ * 用于指定缓存方式的强引用，数据不会因为内存不足而被回收，只会在主动释放或被容量限制淘汰时释放<br/>
+ * 主动调用 {@link #clear()} 或 {@link #enqueue()} 后放弃对数据的持有<br/>
+ * 数据由自身字段持有，交给父类的对象为 null，GC 不会发现与处理该引用<br/>
+ * 每次放入数据仍会生成一个引用对象并注册回收队列，用于在移除或替换时将回收方法交给排空线程
+ *
+ * @author fybug
+ * @version 0.0.3
+ * @since PDCache 0.0.3
+ */
+public
+class StrongReference<T> extends WeakReference<T> {
+    /** 数据 */
+    private volatile T referent;
+
+    public
+    StrongReference(@Nullable T referent) { this(referent, null); }
+
+    public
+    StrongReference(@Nullable T referent, @Nullable ReferenceQueue<? super T> q) {
+        super(null, q);
+        this.referent = referent;
+    }
+
+    @Override
+    public @Nullable
+    T get() { return referent; }
+
+    @Override
+    public
+    void clear() {
+        referent = null;
+        super.clear();
+    }
+
+    @Override
+    public
+    boolean enqueue() {
+        referent = null;
+        return super.enqueue();
+    }
+}
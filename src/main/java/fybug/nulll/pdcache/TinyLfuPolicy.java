@@ -0,0 +1,367 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>W-TinyLFU 容量淘汰策略.</h2>
+ * <p>
+ * 记录分为窗口区（1%）与主区，主区再分为试用区与保护区（主区的 80%）<br/>
+ * 新数据先进入窗口区，窗口区溢出的数据与试用区最久未用的数据比较 {@link FrequencySketch} 中的访问频率，
+ * 频率低的一方被淘汰，因此一次性扫描的数据无法挤出高频数据<br/>
+ * 试用区的数据再次被访问后晋升到保护区，保护区溢出的数据降级回试用区
+ * <br/><br/>
+ * 读取只会写入分条的有损读缓冲区，不占用锁，缓冲区满时尝试获取锁进行整理，获取失败则丢弃该次记录<br/>
+ * 写入、移除与淘汰在策略自身的锁中进行，不涉及缓存分段的锁
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since PDCache 0.0.3
+ */
+final
+class TinyLfuPolicy<K> {
+    /** 区域标记 */
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    /** 读缓冲区分条数量 */
+    private static final int STRIPES = 16;
+    /** 单条读缓冲区大小 */
+    private static final int BUFFER_SIZE = 64;
+    /** 触发整理的未处理数量 */
+    private static final int DRAIN_THRESHOLD = BUFFER_SIZE / 2;
+
+    /** 策略锁 */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** 访问频率 */
+    private final FrequencySketch sketch;
+    /** 记录索引 */
+    private final Map<K, Node<K>> data = new HashMap<>();
+    /** 各个区域，按最久未用到最近使用排列 */
+    private final Deque<K> window = new Deque<>(), probation = new Deque<>(), protect = new Deque<>();
+
+    /** 最大数量 */
+    private final long maximum;
+    /** 窗口区最大数量 */
+    private final long maxWindow;
+    /** 保护区最大数量 */
+    private final long maxProtected;
+    /** 当前各区域数量 */
+    private long windowSize, mainSize, protectedSize;
+
+    /** 读缓冲区 */
+    private final AtomicReferenceArray<Object> readBuffer =
+            new AtomicReferenceArray<>(STRIPES * BUFFER_SIZE);
+    /** 读缓冲区写入位置 */
+    private final AtomicLong[] readWrite = new AtomicLong[STRIPES];
+    /** 读缓冲区读取位置，仅在锁中修改 */
+    private final long[] readRead = new long[STRIPES];
+
+    /**
+     * 构造策略
+     *
+     * @param maximum 最大数量
+     */
+    TinyLfuPolicy(long maximum) {
+        this.maximum = Math.max(1, maximum);
+        maxWindow = Math.max(1, this.maximum / 100);
+        maxProtected = (long) ((this.maximum - maxWindow) * 0.8);
+        sketch = new FrequencySketch(this.maximum);
+        for ( int i = 0; i < STRIPES; i++ )
+            readWrite[i] = new AtomicLong();
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 记录一次读取
+     * <p>
+     * 不占用锁，缓冲区已满时丢弃
+     */
+    void onRead(@NotNull K key) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        var w = readWrite[stripe];
+        long tail = w.get();
+        long pending = tail - readRead[stripe];
+
+        if (pending < BUFFER_SIZE && w.compareAndSet(tail, tail + 1)) {
+            readBuffer.lazySet(stripe * BUFFER_SIZE + (int) (tail & (BUFFER_SIZE - 1)), key);
+            pending++;
+        }
+
+        // 尝试整理
+        if (pending >= DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 记录一次写入
+     *
+     * @param key 数据的键
+     * @param ref 当前存放在缓存中的引用
+     *
+     * @return 需要淘汰的记录
+     */
+    @NotNull
+    List<Evict<K>> onWrite(@NotNull K key, @NotNull Object ref) {
+        lock.lock();
+        try {
+            drainReads();
+            sketch.increment(key);
+
+            var node = data.get(key);
+            if (node != null) {
+                node.ref = ref;
+                onAccess(node);
+                return List.of();
+            }
+
+            node = new Node<>(key, ref);
+            data.put(key, node);
+            window.addLast(node);
+            windowSize++;
+            return evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录一次移除
+     * <p>
+     * 仅在记录的引用与传入的一致时移除
+     */
+    void onRemove(@NotNull K key, @NotNull Object ref) {
+        lock.lock();
+        try {
+            var node = data.get(key);
+            if (node != null && node.ref == ref)
+                unlink(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 清空记录 */
+    void clear() {
+        lock.lock();
+        try {
+            drainReads();
+            data.clear();
+            window.clear();
+            probation.clear();
+            protect.clear();
+            windowSize = mainSize = protectedSize = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 整理读缓冲区
+    private
+    void drainReads() {
+        for ( int i = 0; i < STRIPES; i++ ) {
+            long tail = readWrite[i].get();
+            for ( long head = readRead[i]; head < tail; head++ ) {
+                int index = i * BUFFER_SIZE + (int) (head & (BUFFER_SIZE - 1));
+                var key = readBuffer.getAndSet(index, null);
+                // 还未写入，放弃该次记录
+                if (key == null)
+                    continue;
+
+                sketch.increment(key);
+                var node = data.get(key);
+                if (node != null)
+                    onAccess(node);
+            }
+            readRead[i] = tail;
+        }
+    }
+
+    // 处理访问
+    private
+    void onAccess(@NotNull Node<K> node) {
+        switch ( node.queue ) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                // 晋升
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protect.addLast(node);
+                protectedSize++;
+                demote();
+                break;
+            default:
+                protect.moveToLast(node);
+        }
+    }
+
+    // 保护区溢出的数据降级
+    private
+    void demote() {
+        while( protectedSize > maxProtected ){
+            var n = protect.pollFirst();
+            protectedSize--;
+            n.queue = PROBATION;
+            probation.addLast(n);
+        }
+    }
+
+    // 淘汰多余的数据
+    @NotNull
+    private
+    List<Evict<K>> evict() {
+        /* 窗口区溢出的数据进入试用区，作为候选 */
+        while( windowSize > maxWindow ){
+            var n = window.pollFirst();
+            windowSize--;
+            n.queue = PROBATION;
+            probation.addLast(n);
+            mainSize++;
+        }
+
+        List<Evict<K>> res = null;
+        while( windowSize + mainSize > maximum ){
+            var victim = probation.peekFirst();
+            var candidate = probation.peekLast();
+            if (victim == null) {
+                // 试用区为空，从保护区淘汰
+                victim = candidate = protect.peekFirst();
+                if (victim == null)
+                    break;
+            }
+
+            // 比较访问频率，相同时保留原有数据
+            var out = victim == candidate || sketch.frequency(candidate.key) > sketch.frequency(victim.key)
+                      ? victim : candidate;
+            unlink(out);
+
+            if (res == null)
+                res = new ArrayList<>();
+            res.add(new Evict<>(out.key, out.ref));
+        }
+        return res == null ? List.of() : res;
+    }
+
+    // 从所在区域移除
+    private
+    void unlink(@NotNull Node<K> node) {
+        switch ( node.queue ) {
+            case WINDOW:
+                window.remove(node);
+                windowSize--;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                mainSize--;
+                break;
+            default:
+                protect.remove(node);
+                protectedSize--;
+                mainSize--;
+        }
+        data.remove(node.key, node);
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>被淘汰的记录.</h2>
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since TinyLfuPolicy 0.0.1
+     */
+    static final
+    class Evict<K> {
+        /** 数据的键 */
+        @NotNull final K key;
+        /** 淘汰时记录的引用 */
+        @NotNull final Object ref;
+
+        Evict(@NotNull K key, @NotNull Object ref) {
+            this.key = key;
+            this.ref = ref;
+        }
+    }
+
+    /** 记录节点 */
+    private static final
+    class Node<K> {
+        final K key;
+        Object ref;
+        int queue = WINDOW;
+        Node<K> prev, next;
+
+        Node(K key, Object ref) {
+            this.key = key;
+            this.ref = ref;
+        }
+    }
+
+    /** 双向链表 */
+    private static final
+    class Deque<K> {
+        @Nullable Node<K> first, last;
+
+        void addLast(@NotNull Node<K> n) {
+            n.prev = last;
+            n.next = null;
+            if (last == null)
+                first = n;
+            else
+                last.next = n;
+            last = n;
+        }
+
+        void remove(@NotNull Node<K> n) {
+            if (n.prev == null)
+                first = n.next;
+            else
+                n.prev.next = n.next;
+            if (n.next == null)
+                last = n.prev;
+            else
+                n.next.prev = n.prev;
+            n.prev = n.next = null;
+        }
+
+        void moveToLast(@NotNull Node<K> n) {
+            if (n != last) {
+                remove(n);
+                addLast(n);
+            }
+        }
+
+        @Nullable
+        Node<K> peekFirst() { return first; }
+
+        @Nullable
+        Node<K> peekLast() { return last; }
+
+        @Nullable
+        Node<K> pollFirst() {
+            var n = first;
+            if (n != null)
+                remove(n);
+            return n;
+        }
+
+        void clear() { first = last = null; }
+    }
+}
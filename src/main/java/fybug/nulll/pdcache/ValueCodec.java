@@ -0,0 +1,82 @@
+package fybug.nulll.pdcache;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h2>数据编码接口.</h2>
+ * <p>
+ * 用于将数据存放到堆外内存中，{@link #encode(Object, ByteBuffer)} 写入的字节数需要与 {@link #size(Object)} 一致<br/>
+ * {@link #decode(ByteBuffer)} 传入的是只读视图，只在调用期间有效，不可在返回后继续持有
+ * <br/><br/>
+ * 提供下列实现：
+ * <ul>
+ *     <li>{@link #BYTES} 字节数组</li>
+ *     <li>{@link #STRING} UTF-8 字符串</li>
+ * </ul>
+ *
+ * @param <V> 数据类型
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see fybug.nulll.pdcache.memory.OffHeapMapCache
+ * @since PDCache 0.0.3
+ */
+public
+interface ValueCodec<V> {
+    /** 字节数组 */
+    ValueCodec<byte[]> BYTES = new ValueCodec<>() {
+        public
+        int size(byte @NotNull [] v) { return v.length; }
+
+        public
+        void encode(byte @NotNull [] v, @NotNull ByteBuffer out) { out.put(v); }
+
+        public
+        byte @NotNull [] decode(@NotNull ByteBuffer in) {
+            var b = new byte[in.remaining()];
+            in.get(b);
+            return b;
+        }
+    };
+    /** UTF-8 字符串 */
+    ValueCodec<String> STRING = new ValueCodec<>() {
+        public
+        int size(@NotNull String v) { return v.getBytes(StandardCharsets.UTF_8).length; }
+
+        public
+        void encode(@NotNull String v, @NotNull ByteBuffer out) { out.put(v.getBytes(StandardCharsets.UTF_8)); }
+
+        @NotNull
+        public
+        String decode(@NotNull ByteBuffer in) { return StandardCharsets.UTF_8.decode(in).toString(); }
+    };
+
+    /**
+     * 获取编码后的字节数
+     *
+     * @param v 数据
+     *
+     * @return 字节数
+     */
+    int size(@NotNull V v);
+
+    /**
+     * 编码数据
+     *
+     * @param v   数据
+     * @param out 写入的位置，剩余空间为 {@link #size(Object)}
+     */
+    void encode(@NotNull V v, @NotNull ByteBuffer out) throws Exception;
+
+    /**
+     * 解码数据
+     *
+     * @param in 数据的只读视图
+     *
+     * @return 数据
+     */
+    @NotNull
+    V decode(@NotNull ByteBuffer in) throws Exception;
+}
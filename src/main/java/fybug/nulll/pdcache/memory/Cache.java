@@ -6,6 +6,7 @@ import java.lang.ref.Reference;
 
 import fybug.nulll.pdcache.CacheOb;
 import fybug.nulll.pdcache.MemoryCache;
+import fybug.nulll.pdcache.RemovalListener;
 import fybug.nulll.pdconcurrent.SyLock;
 import fybug.nulll.pdconcurrent.fun.tryConsumer;
 
@@ -123,16 +124,24 @@ class Cache<V> extends MemoryCache<V> {
      * <ul>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.4
      * @since Cache 0.0.1
      */
     public final static
     class Build<V> extends CacheOb.Build<V, Build<V>> {
         @NotNull
         public
-        Cache<V> build() { return new Cache<>(refernce, lockBy); }
+        Cache<V> build() {
+            var c = new Cache<V>(refernce, lockBy);
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
     }
 }
@@ -0,0 +1,50 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <h2>粗粒度时间来源.</h2>
+ * <p>
+ * 由守护线程按精度定时读取 {@link #SYSTEM} 并保存，读取时只访问保存的时间<br/>
+ * 每个精度只有一个实例与线程，通过 {@link #of(long)} 获取
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see Ticker#coarse(long)
+ * @since memory 0.0.3
+ */
+final
+class CoarseTicker implements Ticker {
+    /** 高精度时间来源 */
+    static final Ticker SYSTEM = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    /** 各个精度的实例 */
+    private static final ConcurrentHashMap<Long, CoarseTicker> TICKERS = new ConcurrentHashMap<>();
+
+    /** 保存的时间 */
+    private volatile long now = SYSTEM.read();
+
+    private
+    CoarseTicker(long resolution) {
+        var nanos = TimeUnit.MILLISECONDS.toNanos(resolution);
+        var t = new Thread(() -> {
+            while( true ){
+                LockSupport.parkNanos(nanos);
+                now = SYSTEM.read();
+            }
+        }, "PDCache-ticker-" + resolution);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** 获取该精度的实例，精度最小为 1 毫秒 */
+    @NotNull
+    static
+    CoarseTicker of(long resolution) { return TICKERS.computeIfAbsent(Math.max(resolution, 1), CoarseTicker::new); }
+
+    @Override
+    public
+    long read() { return now; }
+}
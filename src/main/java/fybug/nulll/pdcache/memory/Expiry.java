@@ -0,0 +1,77 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * <h2>数据存活时间策略.</h2>
+ * <p>
+ * 在数据被创建、读取、覆盖时根据键、数据与事件计算新的存活时间，由 {@link TimeMapCache} 在对应事件中调用<br/>
+ * 返回当前剩余时间表示不修改，返回 0 或负数表示立即过期，{@link Long#MAX_VALUE} 表示不过期
+ * <br/><br/>
+ * 读取事件在读取线程中调用且不占用锁，实现需要足够轻量并且线程安全<br/>
+ * 读取时延长存活时间不会占用锁，数据在时间轮中的位置延迟到原本到期时再调整；缩短存活时间时才会占用写锁重新放置
+ *
+ * @param <K> 键的类型
+ * @param <V> 数据类型
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see TimeMapCache.Build#expiry(Expiry)
+ * @since memory 0.0.3
+ */
+@FunctionalInterface
+public
+interface Expiry<K, V> {
+    /**
+     * 计算新的存活时间
+     *
+     * @param key       数据的键
+     * @param val       数据
+     * @param event     触发的事件
+     * @param remaining 当前剩余的存活时间（毫秒），创建时为 0
+     *
+     * @return 从现在开始的存活时间（毫秒）
+     */
+    long expireAfter(@NotNull K key, @Nullable V val, @NotNull Event event, long remaining);
+
+    /**
+     * 写入后过期
+     * <p>
+     * 创建与覆盖时重新计时，读取不影响存活时间
+     *
+     * @param time 存活时间（毫秒）
+     */
+    @NotNull
+    static
+    <K, V> Expiry<K, V> afterWrite(long time)
+    { return (k, v, event, remaining) -> event == Event.READ ? remaining : time; }
+
+    /**
+     * 访问后过期
+     * <p>
+     * 创建、覆盖与读取时都重新计时
+     *
+     * @param time 存活时间（毫秒）
+     */
+    @NotNull
+    static
+    <K, V> Expiry<K, V> afterAccess(long time) { return (k, v, event, remaining) -> time; }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>触发存活时间计算的事件.</h2>
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since Expiry 0.0.1
+     */
+    enum Event {
+        /** 放入新的数据 */
+        CREATE,
+        /** 读取数据 */
+        READ,
+        /** 覆盖未过期的数据 */
+        UPDATE
+    }
+}
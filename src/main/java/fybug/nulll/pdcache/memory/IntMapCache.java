@@ -0,0 +1,141 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+
+import fybug.nulll.pdcache.LongMapCacheOb;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.err.CacheError;
+import fybug.nulll.pdconcurrent.SyLock;
+
+/**
+ * <h2>int 键映射缓存.</h2>
+ * <p>
+ * 与 {@link MapCache} 相同的使用方式，键为 int，读取、放入与移除都不会对键装箱<br/>
+ * 键扩展为 long 后存放，与 {@link LongMapCache} 使用同一实现<br/>
+ * 不支持数量限制与磁盘二级缓存
+ * <br/><br/>
+ * 使用示例
+ * <pre>
+ *     public static
+ *     void main(String[] args) throws Exception {
+ *         IntMapCache&lt;Object&gt; cache = IntMapCache.build(Object.class)
+ *                                                // 使用弱引用
+ *                                                .refernce(WeakReference.class).build();
+ *
+ *         cache.put(1, new Object());
+ *         System.out.println(cache.get(1));
+ *         // 模拟回收
+ *         System.gc();
+ *         System.out.println(cache.get(1));
+ *     }
+ * </pre>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see LongMapCache
+ * @since memory 0.0.3
+ */
+public
+class IntMapCache<V> extends LongMapCacheOb<V> {
+
+    /** 构造缓存，指定缓存方式 */
+    public
+    IntMapCache(@NotNull Class<? extends Reference> refc) { super(refc); }
+
+    /** 构造缓存，指定缓存方式、并发管理和分段数量 */
+    public
+    IntMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments)
+    { super(refc, syLock, segments); }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 获取缓存数据
+     * <p>
+     * 命中时不占用锁
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存数据
+     */
+    @Nullable
+    public
+    V get(int key) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        return getdata(key);
+    }
+
+    /**
+     * 放入新的缓存
+     *
+     * @param key 缓存的键
+     * @param val 缓存的数据
+     *
+     * @return this
+     */
+    @NotNull
+    public
+    IntMapCache<V> put(int key, @NotNull V val) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        putdata(key, val);
+        return this;
+    }
+
+    /**
+     * 移除缓存
+     * <p>
+     * 将缓存内容主动加入回收队列
+     *
+     * @param key 要释放的键
+     */
+    public
+    void remove(int key) { removeData(key); }
+
+    @Nullable
+    protected
+    V emptyData(long key) { return null; }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * 获取缓存构造工具
+     *
+     * @param <V> 缓存内容的类型
+     *
+     * @return 构造工具
+     */
+    @NotNull
+    public static
+    <V> Build<V> build(Class<V> vc) {return new Build<>();}
+
+    /**
+     * <h2> {@link IntMapCache} 构造工具.</h2>
+     * <ul>
+     * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
+     * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器，通知的键为扩展后的 long</li>
+     * <li>使用 {@link #build()} 进行构造</li>
+     * </ul>
+     *
+     * @version 0.0.2
+     * @since IntMapCache 0.0.1
+     */
+    public static final
+    class Build<V> extends LongMapCacheOb.Build<V, Build<V>> {
+        @NotNull
+        public
+        IntMapCache<V> build() {
+            var c = new IntMapCache<V>(refernce, lockBy, segments);
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
+    }
+}
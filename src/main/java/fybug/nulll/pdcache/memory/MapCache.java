@@ -3,9 +3,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.ref.Reference;
+import java.util.List;
+import java.util.Map;
 
 import fybug.nulll.pdcache.MapCacheOb;
 import fybug.nulll.pdcache.MemoryMapCache;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.ValueCodec;
 import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdconcurrent.SyLock;
 import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
@@ -13,7 +17,7 @@ import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
 /**
  * <h2>映射缓存.</h2>
  * <p>
- * 使用键来获取缓存的缓存工具，通过 {@link #put(K, V)} 来放入数据
+ * 使用键来获取缓存的缓存工具，通过 {@link #put(K, V)} 来放入数据，{@link #putAll(Map)} 批量放入数据
  * <br/><br/>
  * 使用示例
  * <pre>使用普通的缓存数据
@@ -60,7 +64,7 @@ import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
  * </pre>
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.3
  * @since memory 0.0.1
  */
 public
@@ -75,6 +79,15 @@ class MapCache<K, V> extends MemoryMapCache<K, V> {
     MapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock)
     { super(refc, syLock); }
 
+    /**
+     * 构造缓存，指定缓存方式、并发管理和分段数量
+     *
+     * @since 0.0.2
+     */
+    public
+    MapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments)
+    { super(refc, syLock, segments); }
+
     //----------------------------------------------------------------------------------------------
 
     /**
@@ -114,10 +127,34 @@ class MapCache<K, V> extends MemoryMapCache<K, V> {
         return this;
     }
 
+    /**
+     * 批量放入新的缓存
+     * <p>
+     * 每个分段只占用一次锁
+     *
+     * @param data 缓存的键与数据
+     *
+     * @return this
+     *
+     * @since 0.0.3
+     */
+    @NotNull
+    public
+    MapCache<K, V> putAll(@NotNull Map<? extends K, ? extends V> data) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        putalldata(data);
+        return this;
+    }
+
     @Nullable
     protected
     V emptyData(@NotNull K key) { return null; }
 
+    @NotNull
+    protected
+    Map<K, V> emptyAll(@NotNull List<K> keys) { return Map.of(); }
+
     /*--------------------------------------------------------------------------------------------*/
 
     /**
@@ -137,16 +174,47 @@ class MapCache<K, V> extends MemoryMapCache<K, V> {
      * <ul>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #maximumSize(long)} 限制缓存数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
+     * <li>使用 {@link #offHeap(ValueCodec)} 改为存放在堆外内存中</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.7
      * @since MapCache 0.0.1
      */
     public static final
     class Build<K, V> extends MapCacheOb.Build<K, V, Build<K, V>> {
         @NotNull
         public
-        MapCache<K, V> build() { return new MapCache<>(refernce, lockBy); }
+        MapCache<K, V> build() {
+            var c = new MapCache<K, V>(refernce, lockBy, segments);
+            c.setMaximumSize(maximumSize);
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setDiskTier(diskTier);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
+
+        /**
+         * 改为存放在堆外内存中
+         * <p>
+         * 沿用已设置的并发管理、统计与移除监听器，缓存方式、分段与数量限制不再生效，容量通过 {@link OffHeapMapCache.Build} 指定
+         *
+         * @param codec 数据编码接口
+         *
+         * @return 堆外映射缓存的构造工具
+         *
+         * @since MapCache.Build 0.0.5
+         */
+        @NotNull
+        public
+        OffHeapMapCache.Build<K, V> offHeap(@NotNull ValueCodec<V> codec) {
+            var b = new OffHeapMapCache.Build<K, V>().codec(codec).lockBy(lockBy).removalListener(removalListener);
+            return recordStats ? b.recordStats() : b;
+        }
     }
 }
@@ -0,0 +1,458 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fybug.nulll.pdcache.CacheStats;
+import fybug.nulll.pdcache.RemovalBus;
+import fybug.nulll.pdcache.RemovalCause;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.StatsCounter;
+import fybug.nulll.pdcache.ValueCodec;
+import fybug.nulll.pdcache.err.CacheError;
+import fybug.nulll.pdconcurrent.SyLock;
+import fybug.nulll.pdconcurrent.fun.tryFunction;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * <h2>堆外映射缓存.</h2>
+ * <p>
+ * 数据通过 {@link ValueCodec} 编码后存放在由 {@link SlabAllocator} 管理的直接内存中，不占用堆内存，也不会被 GC 扫描<br/>
+ * 适用于大量、不可变、以字节为主的数据，数据只会因为主动移除或超出容量被淘汰而释放
+ * <br/><br/>
+ * 可使用 {@link #get(Object)} 获取解码后的数据，也可使用 {@link #view(Object, tryFunction)} 直接读取存放数据的只读视图，
+ * 视图不复制数据，只在回调期间有效
+ * <br/><br/>
+ * 堆外内存按块申请，每块只存放同一大小等级的数据，超出容量时优先淘汰同一等级的数据，淘汰使用二次机会的 CLOCK 策略：
+ * 读取时只标记数据，淘汰时跳过并清除被标记过的数据<br/>
+ * 该等级没有数据时从数据最多的等级中淘汰，直到有块被完全释放
+ * <br/><br/>
+ * 读取占用读锁，放入、移除与淘汰占用写锁
+ * <br/><br/>
+ * 可使用 {@link #setRemovalListener(RemovalListener)} 监听数据的移除，通知中的数据在释放前解码，解码失败时为 null，
+ * 未绑定监听器时不会解码
+ * <br/><br/>
+ * 包含下列参数：
+ * <ul>
+ *      <li>codec，数据编码接口，必须指定</li>
+ *      <li>capacity，堆外内存上限（字节），至少为一个块。默认为 64 MB</li>
+ *      <li>slabSize，块的大小（字节），也是单个数据的最大大小，会向上取整为 2 的幂。默认为 1 MB</li>
+ *      <li>syLock，{@link SyLock} 并发管理工具实例</li>
+ * </ul>
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @see ValueCodec
+ * @since memory 0.0.3
+ */
+public
+class OffHeapMapCache<K, V> implements Closeable {
+    /** 数据编码接口 */
+    protected final ValueCodec<V> codec;
+    /** 并发管理 */
+    protected final SyLock LOCK;
+    /** 数据位置记录 */
+    protected final Map<K, Slot> map = new HashMap<>();
+
+    /** 堆外内存分配器 */
+    private final SlabAllocator allocator;
+    /** 各个大小等级的淘汰队列，按放入顺序排列 */
+    private final LinkedHashMap<K, Slot>[] queues;
+
+    /** 统计计数器，未开启统计时为 null */
+    @Nullable protected volatile StatsCounter statsCounter;
+    /**
+     * 移除通知总线，未绑定监听器时为 null
+     *
+     * @since 0.0.2
+     */
+    @Nullable protected volatile RemovalBus<K, V> removalBus;
+    // 是否被关闭
+    @Getter private volatile boolean isClose = false;
+
+    //----------------------------------------------------------------------------------------------
+
+    /** 构造缓存，指定编码接口与容量 */
+    public
+    OffHeapMapCache(@NotNull ValueCodec<V> codec, long capacity)
+    { this(codec, capacity, 1 << 20, SyLock.newRWLock()); }
+
+    /**
+     * 构造缓存
+     *
+     * @param codec    数据编码接口
+     * @param capacity 堆外内存上限
+     * @param slabSize 块的大小
+     * @param syLock   并发管理
+     */
+    public
+    OffHeapMapCache(@NonNull ValueCodec<V> codec, long capacity, int slabSize, @NotNull SyLock syLock) {
+        this.codec = codec;
+        LOCK = syLock;
+        allocator = new SlabAllocator(slabSize, capacity);
+        queues = new LinkedHashMap[allocator.classes()];
+        for ( int i = 0; i < queues.length; i++ )
+            queues[i] = new LinkedHashMap<>();
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 获取缓存数据
+     * <p>
+     * 在读锁中解码
+     *
+     * @param key 缓存的键
+     *
+     * @return 解码后的数据，没有时为 null
+     */
+    @Nullable
+    public
+    V get(@NotNull K key) throws Exception, CacheError { return view(key, codec::decode); }
+
+    /**
+     * 读取缓存数据的只读视图
+     * <p>
+     * 视图直接指向堆外内存，不复制数据，只在回调期间有效，回调期间占用读锁
+     *
+     * @param key 缓存的键
+     * @param run 读取视图的回调，没有数据时不执行
+     *
+     * @return 回调的返回，没有数据时为 null
+     */
+    @Nullable
+    public
+    <R> R view(@NotNull K key, @NotNull tryFunction<ByteBuffer, R, Exception> run) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+
+        var s = statsCounter;
+        return LOCK.tryread(Exception.class, () -> {
+            var slot = map.get(key);
+            if (slot == null) {
+                if (s != null)
+                    s.recordMisses(1);
+                return null;
+            }
+
+            slot.referenced = true;
+            if (s != null)
+                s.recordHits(1);
+            return run.apply(allocator.view(slot.address, slot.length));
+        });
+    }
+
+    /**
+     * 放入缓存
+     * <p>
+     * 在写锁中编码，空间不足时淘汰数据
+     *
+     * @param key 缓存的键
+     * @param val 缓存的数据
+     *
+     * @return this
+     *
+     * @throws IllegalArgumentException 编码后的数据大于块的大小
+     */
+    @NotNull
+    public
+    OffHeapMapCache<K, V> put(@NotNull K key, @NotNull V val) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+
+        var length = codec.size(val);
+        var sizeClass = allocator.classOf(length);
+        if (sizeClass < 0)
+            throw new IllegalArgumentException("value size " + length + " exceeds slab size");
+
+        LOCK.trywrite(Exception.class, () -> {
+            removeSlot(key, RemovalCause.REPLACED);
+
+            var address = allocate(sizeClass);
+            // 无可用空间
+            if (address < 0)
+                return;
+            try {
+                codec.encode(val, allocator.buffer(address, length));
+            } catch ( Exception e ) {
+                allocator.free(address);
+                throw e;
+            }
+
+            var slot = new Slot(address, length, sizeClass);
+            map.put(key, slot);
+            queues[sizeClass].put(key, slot);
+        });
+        return this;
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param key 缓存的键
+     */
+    public
+    void remove(@NotNull K key) {
+        LOCK.write(() -> {
+            if (removeSlot(key, RemovalCause.EXPLICIT)) {
+                var s = statsCounter;
+                if (s != null)
+                    s.recordRemoval(1);
+            }
+        });
+    }
+
+    /** 清空缓存，保留已申请的堆外内存 */
+    public
+    void clear() {
+        LOCK.write(() -> {
+            if (removalBus != null)
+                map.forEach((k, slot) -> removed(k, slot, RemovalCause.CLEARED));
+            reset();
+            allocator.clear();
+        });
+    }
+
+    /** 数据数量 */
+    public
+    int size() { return LOCK.read(map::size); }
+
+    /** 已申请的堆外内存（字节） */
+    public
+    long reservedMemory() { return LOCK.read(allocator::reserved); }
+
+    /** 堆外内存上限（字节） */
+    public
+    long capacity() { return allocator.capacity(); }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 绑定移除监听器
+     *
+     * @param listener 移除监听器，为 null 则解除绑定
+     *
+     * @since 0.0.2
+     */
+    public
+    void setRemovalListener(@Nullable RemovalListener<? super K, ? super V> listener)
+    { removalBus = listener == null ? null : new RemovalBus<>(listener); }
+
+    /** 设置是否开启统计 */
+    public
+    void setRecordStats(boolean recordStats) { statsCounter = recordStats ? new StatsCounter() : null; }
+
+    /**
+     * 获取统计快照
+     *
+     * @return 当前的统计，未开启统计时只有当前数量
+     */
+    @NotNull
+    public
+    CacheStats stats() {
+        var size = size();
+        var s = statsCounter;
+        return s == null ? CacheStats.empty(size) : s.snapshot(size);
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 清空记录，需在写锁中调用
+    private
+    void reset() {
+        map.clear();
+        for ( var q : queues )
+            q.clear();
+    }
+
+    // 发送移除通知，在释放前解码，需在锁中调用
+    private
+    void removed(@NotNull K key, @NotNull Slot slot, @NotNull RemovalCause cause) {
+        var b = removalBus;
+        if (b == null)
+            return;
+        V v;
+        try {
+            v = codec.decode(allocator.view(slot.address, slot.length));
+        } catch ( Exception e ) {
+            v = null;
+        }
+        b.notify(key, v, cause);
+    }
+
+    // 移除并释放数据，需在写锁中调用
+    private
+    boolean removeSlot(@NotNull K key, @NotNull RemovalCause cause) {
+        var slot = map.remove(key);
+        if (slot == null)
+            return false;
+        removed(key, slot, cause);
+        queues[slot.sizeClass].remove(key);
+        allocator.free(slot.address);
+        return true;
+    }
+
+    // 分配空间，不足时淘汰数据，需在写锁中调用
+    private
+    long allocate(int sizeClass) {
+        long address;
+        while( (address = allocator.allocate(sizeClass)) < 0 ){
+            if (!evict(sizeClass))
+                return -1;
+        }
+        return address;
+    }
+
+    // 淘汰一个数据
+    private
+    boolean evict(int sizeClass) {
+        var q = queues[sizeClass];
+        /* 该等级没有数据，从数据最多的等级中淘汰 */
+        if (q.isEmpty()) {
+            q = null;
+            for ( var o : queues ) {
+                if (!o.isEmpty() && (q == null || o.size() > q.size()))
+                    q = o;
+            }
+            if (q == null)
+                return false;
+        }
+
+        while( true ){
+            var e = q.entrySet().iterator().next();
+            var key = e.getKey();
+            var slot = e.getValue();
+            q.remove(key);
+
+            // 二次机会
+            if (slot.referenced) {
+                slot.referenced = false;
+                q.put(key, slot);
+                continue;
+            }
+
+            map.remove(key);
+            removed(key, slot, RemovalCause.SIZE);
+            allocator.free(slot.address);
+            var s = statsCounter;
+            if (s != null)
+                s.recordEviction(1);
+            return true;
+        }
+    }
+
+    @Override
+    public
+    void close() {
+        if (isClose())
+            return;
+        isClose = true;
+        LOCK.write(() -> {
+            reset();
+            allocator.release();
+        });
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * 获取缓存构造工具
+     *
+     * @param <K> 键的类型
+     * @param <V> 缓存内容的类型
+     *
+     * @return 构造工具
+     */
+    @NotNull
+    public static
+    <K, V> Build<K, V> build(Class<K> kClass, Class<V> vClass) { return new Build<>(); }
+
+    /**
+     * <h2> {@link OffHeapMapCache} 构造工具.</h2>
+     * <ul>
+     * <li>使用 {@link #codec(ValueCodec)} 绑定数据编码接口</li>
+     * <li>使用 {@link #capacity(long)} 指定堆外内存上限</li>
+     * <li>使用 {@link #slabSize(int)} 指定块的大小</li>
+     * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
+     * <li>使用 {@link #build()} 进行构造</li>
+     * </ul>
+     *
+     * @version 0.0.2
+     * @since OffHeapMapCache 0.0.1
+     */
+    @Accessors( chain = true, fluent = true )
+    public static final
+    class Build<K, V> {
+        /** 数据编码接口 */
+        @Setter private ValueCodec<V> codec;
+        /** 堆外内存上限 */
+        @Setter private long capacity = 64L << 20;
+        /** 块的大小 */
+        @Setter private int slabSize = 1 << 20;
+        /** 并发工具 */
+        @Setter private SyLock lockBy = SyLock.newRWLock();
+        /** 是否开启统计 */
+        private boolean recordStats = false;
+        /**
+         * 移除监听器
+         *
+         * @since OffHeapMapCache.Build 0.0.2
+         */
+        @Setter private RemovalListener<? super K, ? super V> removalListener;
+
+        /** 开启统计 */
+        @NotNull
+        public
+        Build<K, V> recordStats() {
+            recordStats = true;
+            return this;
+        }
+
+        /** 构造 */
+        @NotNull
+        public
+        OffHeapMapCache<K, V> build() {
+            var c = new OffHeapMapCache<K, V>(codec, capacity, slabSize, lockBy);
+            c.setRecordStats(recordStats);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>数据位置记录.</h2>
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since OffHeapMapCache 0.0.1
+     */
+    protected static final
+    class Slot {
+        /** 分片地址 */
+        final long address;
+        /** 数据长度 */
+        final int length;
+        /** 大小等级 */
+        final int sizeClass;
+        /** 是否在上次淘汰后被读取 */
+        volatile boolean referenced;
+
+        Slot(long address, int length, int sizeClass) {
+            this.address = address;
+            this.length = length;
+            this.sizeClass = sizeClass;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <h2>堆外内存分配器.</h2>
+ * <p>
+ * 堆外内存按固定大小的块（slab）申请，每块只用于一种大小的分片（chunk）<br/>
+ * 分片大小为 64 字节起的 2 的幂，最大为块的大小，数据放入能容纳它的最小分片中
+ * <br/><br/>
+ * 块在首次需要时申请，数量达到上限后不再申请，此时分配会失败，由调用方淘汰数据后重试<br/>
+ * 块中的分片全部释放后该块会被回收，可重新用于其他大小的分片
+ * <br/><br/>
+ * 分配结果为地址，高 32 位为块的下标，低 32 位为块内偏移<br/>
+ * <b>该工具不是线程安全的，需要在外部加锁</b>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since OffHeapMapCache 0.0.1
+ */
+final
+class SlabAllocator {
+    /** 最小分片大小的位移 */
+    private static final int MIN_SHIFT = 6;
+
+    /** 块大小的位移 */
+    private final int slabShift;
+    /** 块 */
+    private final ByteBuffer[] slabs;
+    /** 已申请的块数量 */
+    private int created;
+
+    /** 块对应的分片大小等级，-1 为未使用 */
+    private final int[] slabClass;
+    /** 块中已使用的分片数量 */
+    private final int[] used;
+    /** 块中从未使用过的第一个分片 */
+    private final int[] bump;
+    /** 块中被释放的分片 */
+    private final IntStack[] freeChunks;
+
+    /** 未使用的块 */
+    private final IntStack emptySlabs = new IntStack();
+    /** 各个等级可能有空闲分片的块 */
+    private final IntStack[] partial;
+    /** 块当前所在的 partial 等级，-1 为不在其中 */
+    private final int[] listed;
+
+    /**
+     * 构造分配器
+     *
+     * @param slabSize 块大小，会向上取整为 2 的幂，范围为 64 字节到 1 GB
+     * @param capacity 最大占用，至少为一个块
+     */
+    SlabAllocator(int slabSize, long capacity) {
+        var size = Math.min(Math.max(slabSize, 1), 1 << 30);
+        slabShift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(size - 1));
+        var max = (int) Math.min(Math.max(capacity >>> slabShift, 1), Integer.MAX_VALUE - 8);
+
+        slabs = new ByteBuffer[max];
+        slabClass = new int[max];
+        used = new int[max];
+        bump = new int[max];
+        freeChunks = new IntStack[max];
+        listed = new int[max];
+        Arrays.fill(slabClass, -1);
+        Arrays.fill(listed, -1);
+
+        partial = new IntStack[slabShift - MIN_SHIFT + 1];
+        for ( int i = 0; i < partial.length; i++ )
+            partial[i] = new IntStack();
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 获取能容纳数据的分片大小等级
+     *
+     * @param size 数据大小
+     *
+     * @return 等级，超出块大小时为 -1
+     */
+    int classOf(int size) {
+        if (size > (1 << slabShift))
+            return -1;
+        if (size <= (1 << MIN_SHIFT))
+            return 0;
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+    }
+
+    /**
+     * 分配分片
+     *
+     * @param sizeClass 分片大小等级
+     *
+     * @return 分片地址，没有可用空间时为 -1
+     */
+    long allocate(int sizeClass) {
+        var p = partial[sizeClass];
+        while( p.size > 0 ){
+            int s = p.peek();
+            if (slabClass[s] == sizeClass) {
+                int chunk = take(s);
+                if (chunk >= 0)
+                    return address(s, chunk, sizeClass);
+            }
+            // 已满或已被回收
+            p.pop();
+            if (listed[s] == sizeClass)
+                listed[s] = -1;
+        }
+
+        int s = newSlab();
+        if (s < 0)
+            return -1;
+        slabClass[s] = sizeClass;
+        p.push(s);
+        listed[s] = sizeClass;
+        return address(s, take(s), sizeClass);
+    }
+
+    /**
+     * 释放分片
+     *
+     * @param address 分片地址
+     */
+    void free(long address) {
+        int s = (int) (address >>> 32);
+        int c = slabClass[s];
+        if (--used[s] == 0) {
+            // 回收整个块
+            slabClass[s] = -1;
+            bump[s] = 0;
+            if (freeChunks[s] != null)
+                freeChunks[s].size = 0;
+            emptySlabs.push(s);
+            return;
+        }
+
+        if (freeChunks[s] == null)
+            freeChunks[s] = new IntStack();
+        var free = freeChunks[s];
+        free.push((int) address >>> (MIN_SHIFT + c));
+        // 重新列入有空闲的块
+        if (listed[s] != c) {
+            partial[c].push(s);
+            listed[s] = c;
+        }
+    }
+
+    /**
+     * 获取分片的可写视图
+     *
+     * @param address 分片地址
+     * @param length  数据长度
+     *
+     * @return 位置为 0，剩余空间为数据长度的视图
+     */
+    @NotNull
+    ByteBuffer buffer(long address, int length) {
+        int off = (int) address;
+        return slabs[(int) (address >>> 32)].duplicate().position(off).limit(off + length).slice();
+    }
+
+    /**
+     * 获取分片的只读视图
+     *
+     * @param address 分片地址
+     * @param length  数据长度
+     *
+     * @return 位置为 0，剩余空间为数据长度的只读视图
+     */
+    @NotNull
+    ByteBuffer view(long address, int length) { return buffer(address, length).asReadOnlyBuffer(); }
+
+    /** 释放所有分片，保留已申请的块 */
+    void clear() {
+        emptySlabs.size = 0;
+        for ( int s = created - 1; s >= 0; s-- ) {
+            slabClass[s] = -1;
+            used[s] = bump[s] = 0;
+            if (freeChunks[s] != null)
+                freeChunks[s].size = 0;
+            emptySlabs.push(s);
+        }
+        for ( var p : partial )
+            p.size = 0;
+        Arrays.fill(listed, -1);
+    }
+
+    /** 释放所有分片与块 */
+    void release() {
+        clear();
+        emptySlabs.size = 0;
+        Arrays.fill(slabs, null);
+        Arrays.fill(freeChunks, null);
+        created = 0;
+    }
+
+    /** 分片大小等级的数量 */
+    int classes() { return partial.length; }
+
+    /** 已申请的堆外内存大小 */
+    long reserved() { return (long) created << slabShift; }
+
+    /** 堆外内存上限 */
+    long capacity() { return (long) slabs.length << slabShift; }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 获取空闲的块
+    private
+    int newSlab() {
+        if (emptySlabs.size > 0)
+            return emptySlabs.pop();
+        if (created == slabs.length)
+            return -1;
+        slabs[created] = ByteBuffer.allocateDirect(1 << slabShift);
+        return created++;
+    }
+
+    // 从块中取出分片
+    private
+    int take(int s) {
+        int chunk;
+        var free = freeChunks[s];
+        if (free != null && free.size > 0)
+            chunk = free.pop();
+        else if (bump[s] < chunks(slabClass[s]))
+            chunk = bump[s]++;
+        else
+            return -1;
+        used[s]++;
+        return chunk;
+    }
+
+    // 块中的分片数量
+    private
+    int chunks(int sizeClass) { return 1 << (slabShift - MIN_SHIFT - sizeClass); }
+
+    // 生成地址
+    private static
+    long address(int s, int chunk, int sizeClass)
+    { return ((long) s << 32) | ((long) chunk << (MIN_SHIFT + sizeClass)); }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /** int 栈 */
+    private static final
+    class IntStack {
+        int[] data = new int[8];
+        int size;
+
+        void push(int v) {
+            if (size == data.length)
+                data = Arrays.copyOf(data, size << 1);
+            data[size++] = v;
+        }
+
+        int pop() { return data[--size]; }
+
+        int peek() { return data[size - 1]; }
+    }
+}
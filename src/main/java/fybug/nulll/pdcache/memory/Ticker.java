@@ -0,0 +1,55 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * <h2>时间来源.</h2>
+ * <p>
+ * 由 {@link TimeMapCache} 用于计算数据的过期时间与推进时间轮，返回的时间只用于计算时间差，与系统时间无关<br/>
+ * 默认使用 {@link #system()}，对精度要求不高时可使用 {@link #coarse()} 减少读取时钟的开销<br/>
+ * 测试时可传入自定义的实现手动推进时间，如 {@code AtomicLong::get}，不需要等待真实的时间
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see TimeMapCache.Build#ticker(Ticker)
+ * @since memory 0.0.3
+ */
+@FunctionalInterface
+public
+interface Ticker {
+    /**
+     * 读取当前时间
+     *
+     * @return 当前时间（毫秒），需要单调不减
+     */
+    long read();
+
+    /**
+     * 高精度时间来源
+     * <p>
+     * 每次读取 {@link System#nanoTime()} 并换算为毫秒，不受系统时间调整的影响
+     */
+    @NotNull
+    static
+    Ticker system() { return CoarseTicker.SYSTEM; }
+
+    /**
+     * 粗粒度时间来源，精度为 10 毫秒
+     *
+     * @see #coarse(long)
+     */
+    @NotNull
+    static
+    Ticker coarse() { return coarse(10); }
+
+    /**
+     * 粗粒度时间来源
+     * <p>
+     * 由后台线程每隔一段时间更新一次缓存的时间，读取只访问该时间，不调用系统时钟<br/>
+     * 相同精度的时间来源共享同一个后台线程
+     *
+     * @param resolution 精度（毫秒），即后台线程的更新间隔
+     */
+    @NotNull
+    static
+    Ticker coarse(long resolution) { return CoarseTicker.of(resolution); }
+}
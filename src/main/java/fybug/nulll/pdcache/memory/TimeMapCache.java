@@ -2,16 +2,23 @@ package fybug.nulll.pdcache.memory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
+import fybug.nulll.pdcache.CacheStats;
+import fybug.nulll.pdcache.RemovalBus;
+import fybug.nulll.pdcache.RemovalCause;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.StatsCounter;
+import fybug.nulll.pdcache.ValueCodec;
 import fybug.nulll.pdconcurrent.ObjLock;
 import fybug.nulll.pdconcurrent.SyLock;
 import lombok.AllArgsConstructor;
@@ -24,43 +31,86 @@ import lombok.val;
 /**
  * <h2>基于时间控制的缓存.</h2>
  * <p>
- * 内部使用 {@link LinkedHashMap} 实现的缓存工具，可指定数据过期的时间（毫秒）。<br/>
+ * 内部使用 {@link ConcurrentHashMap} 与分层时间轮 {@link TimerWheel} 实现的缓存工具，可指定数据过期的时间（毫秒）。<br/>
  * 数据不会因为当前被持有而不会过期，因为数据基于时间控制，内部不使用 {@link java.lang.ref.Reference} 维护。<br/>
  * 数据过期或因为任何原因被移除都会触发回收事件，在 {@link #putData(Object, Object, long, Consumer)} 最后一个参数指定，接口传入当前数据。<br/>
  * 回收事件执行时在一个线程池内执行，可使用 {@link #setGcThread(ExecutorService)} 指定，默认为 {@link Executors#newCachedThreadPool()}
  * <br/><br/>
  * <b>注意：{@link #clear()} 不会触发回收事件，因为这是缓存清空操作而不是单独回收数据。</b>
  * <br/><br/>
- * 内部会使用线程检查当前在热度排序中最后的几个数据，过期则会被主动移除。<br/>
+ * 内部会使用线程定时推进时间轮，只处理已经到期的时间槽，过期的数据会被主动移除，开销只与过期的数据数量相关。<br/>
+ * 到期的数据分批处理，每批占用一次写锁，避免长时间阻塞读取。<br/>
  * 可通过 {@link #closeTimeTask()} 关闭扫描线程，效果等同于构造时传入的扫描间隔为 0，在不需要该工具时也可以使用 {@link #closeTimeTaskAndClear()} 清空数据并关闭扫描线程。<br/>
  * 在每次读取数据的时候都会检查数据是否过期，避免已过期的高热度数据残留。<br/>
  * 获取数据和放入数据的时候可以重新指定数据的存活时间，以当前时间为基准重新设定。
  * <br/><br/>
+ * 可通过 {@link #setExpiry(Expiry)} 指定存活时间策略，在创建、覆盖与读取时计算新的存活时间，
+ * 如 {@link Expiry#afterWrite(long)}、{@link Expiry#afterAccess(long)}，未指定时放入数据使用 dataTime，读取不影响存活时间。<br/>
+ * 读取时延长存活时间只修改数据记录，不占用锁，时间轮在原本的到期时间检查到未过期后重新放置；缩短存活时间时才占用写锁重新放置。
+ * <br/><br/>
+ * 可指定分片数量，数据按键的哈希分布到各自独立加锁的分片 {@link Shard} 中，扫描、{@link #trimData()} 与 {@link #clear()} 逐个分片进行。<br/>
+ * 读取（缩短存活时间时除外）不占用锁，可并行进行，默认只有一个分片，此时 {@link #map}、{@link #LOCK} 即为全部数据。
+ * <br/><br/>
+ * 开启统计后可通过 {@link #stats()} 获取命中、过期与移除的统计。
+ * <br/><br/>
+ * 时间通过构造时指定的 {@link Ticker} 读取，默认为 {@link Ticker#system()}，
+ * 可使用 {@link Ticker#coarse()} 由后台线程定时更新时间，读取时不再调用系统时钟，过期精度约为 10 毫秒。
+ * <br/><br/>
+ * 指定 {@link #setSnapshotCodec(ValueCodec, ValueCodec)} 后可通过 {@link #snapshotTo(Path)} 将数据与剩余存活时间写入快照文件，
+ * 通过 {@link #restoreFrom(Path)} 恢复，用于重启后预热。写入不占用锁，恢复时跳过已经过期的数据，回收事件不会被保存。<br/>
+ * 可使用 {@link #scheduleSnapshot(Path, long)} 定时写入快照。
+ * <br/><br/>
+ * 可使用 {@link #setRemovalListener(RemovalListener)} 监听所有数据的移除，包括过期、替换与 {@link #clear()}，
+ * 锁中只记录通知，监听器由 {@link RemovalBus} 在锁外异步分批调用。
+ * <br/><br/>
  * 包含下列参数：
  * <ul>
- *      <li>syLock，{@link SyLock} 并发管理工具实例。</li>
+ *      <li>syLock，{@link SyLock} 并发管理工具实例，分片时其余分片使用同类型的新实例。</li>
+ *      <li>shards，分片数量，仅可构造时传入，会向上取整为 2 的幂。默认为 1 个</li>
  *      <li>dataTime，默认数据过期时间，可构造时传入，可使用 {@link #setDataTime(long)} 修改。默认为 24 小时</li>
  *      <li>scarrentime，线程扫描间隔，仅可构造时传入，如果为 0 则关闭扫描。默认为 5 分钟</li>
- *      <li>scarrenNum，每次线程扫描的数量，仅通过 {@link #setScarrenNum(int)} 设置。默认为 20 个</li>
+ *      <li>scarrenNum，每次占用锁处理的到期数据数量，仅通过 {@link #setScarrenNum(int)} 设置。默认为 20 个</li>
  * </ul>
  *
  * @author fybug
- * @version 0.0.3
+ * @version 0.0.10
  * @since memory 0.0.2
  */
 public
 class TimeMapCache<K, V> {
-    /** 数据缓存区 */
-    protected final Map<K, Enty<V>> map = new LinkedHashMap<>();
-    /** 并发管理 */
+    /** 数据缓存区，分片时为第一个分片的缓存区 */
+    protected final Map<K, Enty<V>> map;
+    /** 并发管理，分片时为第一个分片的并发管理 */
     protected final SyLock LOCK;
+    /**
+     * 数据分片
+     *
+     * @since 0.0.5
+     */
+    protected final Shard<K, V>[] shards;
+    /** 分片掩码 */
+    private final int shardMask;
+    /**
+     * 时间来源
+     *
+     * @since 0.0.10
+     */
+    @NotNull protected final Ticker ticker;
 
     /** 数据过期时间（毫秒） */
     @Setter protected volatile long dataTime;
+    /**
+     * 存活时间策略，为空时放入数据使用 {@link #dataTime}，读取不影响存活时间
+     *
+     * @since 0.0.7
+     */
+    @Nullable
+    @Setter
+    protected volatile Expiry<K, V> expiry;
 
     /** 定时器 */
     @Nullable protected final Timer timerRun;
-    /** 从尾部扫描的数量 */
+    /** 每次占用锁处理的到期数据数量 */
     @Setter protected volatile int scarrenNum;
 
     /**
@@ -72,6 +122,32 @@ class TimeMapCache<K, V> {
     @Setter
     @Getter
     protected ExecutorService GcThread = Executors.newCachedThreadPool();
+    /**
+     * 统计计数器，未开启统计时为 null
+     *
+     * @since 0.0.6
+     */
+    @Nullable protected volatile StatsCounter statsCounter;
+    /**
+     * 快照的键编码接口
+     *
+     * @since 0.0.8
+     */
+    @Nullable protected volatile ValueCodec<K> keyCodec;
+    /**
+     * 快照的数据编码接口
+     *
+     * @since 0.0.8
+     */
+    @Nullable protected volatile ValueCodec<V> valueCodec;
+    /** 定时快照的定时器 */
+    @Nullable private volatile Timer snapshotRun;
+    /**
+     * 移除通知总线，未绑定监听器时为 null
+     *
+     * @since 0.0.9
+     */
+    @Nullable protected volatile RemovalBus<K, V> removalBus;
 
     //----------------------------------------------------------------------------------------------
 
@@ -95,7 +171,46 @@ class TimeMapCache<K, V> {
      * @param scarrentime 检查线程扫描间隔，为 0 则不运行线程检查
      */
     public
-    TimeMapCache(@NotNull SyLock syLock, long datatime, long scarrentime) {
+    TimeMapCache(@NotNull SyLock syLock, long datatime, long scarrentime)
+    { this(syLock, datatime, scarrentime, 1); }
+
+    /**
+     * 构造缓存，指定参数和分片数量
+     *
+     * @param syLock      第一个分片的并发管理，其余分片使用同类型的新实例
+     * @param datatime    默认数据过期时间
+     * @param scarrentime 检查线程扫描间隔，为 0 则不运行线程检查
+     * @param shards      分片数量，会向上取整为 2 的幂
+     *
+     * @since 0.0.5
+     */
+    public
+    TimeMapCache(@NotNull SyLock syLock, long datatime, long scarrentime, int shards)
+    { this(syLock, datatime, scarrentime, shards, Ticker.system()); }
+
+    /**
+     * 构造缓存，指定参数、分片数量和时间来源
+     *
+     * @param syLock      第一个分片的并发管理，其余分片使用同类型的新实例
+     * @param datatime    默认数据过期时间
+     * @param scarrentime 检查线程扫描间隔，为 0 则不运行线程检查
+     * @param shards      分片数量，会向上取整为 2 的幂
+     * @param ticker      时间来源
+     *
+     * @since 0.0.10
+     */
+    public
+    TimeMapCache(@NotNull SyLock syLock, long datatime, long scarrentime, int shards, @NotNull Ticker ticker) {
+        this.ticker = ticker;
+        var now = ticker.read();
+        var n = shards <= 1 ? 1 : Integer.highestOneBit(Math.min(shards, 1 << 16) - 1) << 1;
+        this.shards = new Shard[n];
+        this.shards[0] = new Shard<>(syLock, now);
+        for ( int i = 1; i < n; i++ )
+            this.shards[i] = new Shard<>(newLock(syLock), now);
+        shardMask = n - 1;
+
+        map = this.shards[0].map;
         LOCK = syLock;
         dataTime = datatime;
         scarrenNum = 20;
@@ -108,11 +223,40 @@ class TimeMapCache<K, V> {
             timerRun = null;
     }
 
+    // 生成同类型的并发管理
+    @NotNull
+    private static
+    SyLock newLock(@NotNull SyLock syLock) {
+        try {
+            return syLock.getClass().getConstructor().newInstance();
+        } catch ( Exception e ) {
+            return SyLock.newRWLock();
+        }
+    }
+
+    /**
+     * 获取键所在的分片
+     *
+     * @param k 数据的键
+     *
+     * @return 对应的分片
+     *
+     * @since 0.0.5
+     */
+    @NotNull
+    protected final
+    Shard<K, V> shard(@NotNull K k) {
+        if (shardMask == 0)
+            return shards[0];
+        var h = k.hashCode();
+        return shards[(h ^ (h >>> 16)) & shardMask];
+    }
+
     /**
      * 缓存检查任务
      *
      * @author fybug
-     * @version 0.0.2
+     * @version 0.0.4
      * @since TimeMapCache 0.0.1
      */
     protected final
@@ -120,14 +264,9 @@ class TimeMapCache<K, V> {
         @Override
         public
         void run() {
-            LOCK.write(() -> {
-                var now = System.currentTimeMillis();
-                var i = 0;
-                var iter = map.entrySet().iterator();
-                // 检查
-                while( iter.hasNext() && i++ < scarrenNum )
-                    CheckVal(iter, now);
-            });
+            // 逐个分片处理
+            for ( var shard : shards )
+                shard.expire(ticker.read(), scarrenNum, TimeMapCache.this::expired);
         }
     }
 
@@ -135,6 +274,8 @@ class TimeMapCache<K, V> {
 
     /**
      * 放入数据
+     * <p>
+     * 存活时间由 {@link #expiry} 计算，未指定时为 {@link #dataTime}
      *
      * @param k 数据的键
      * @param v 数据内容
@@ -142,7 +283,44 @@ class TimeMapCache<K, V> {
      * @see #putData(Object, Object, long)
      */
     public
-    void putData(@NotNull K k, V v) { this.putData(k, v, dataTime); }
+    void putData(@NotNull K k, V v) { putData(k, v, (Consumer<V>) null); }
+
+    /**
+     * 放入数据
+     * <p>
+     * 存活时间由 {@link #expiry} 计算，未指定时为 {@link #dataTime}
+     *
+     * @param k      数据的键
+     * @param v      数据内容
+     * @param endrun 数据被回收事件回调，接口传入当前数据，为空则不触发
+     *
+     * @since 0.0.7
+     */
+    public
+    void putData(@NotNull K k, @Nullable V v, @Nullable Consumer<V> endrun) {
+        var e = expiry;
+        if (e == null) {
+            putData(k, v, dataTime, endrun);
+            return;
+        }
+
+        var shard = shard(k);
+        shard.LOCK.write(() -> {
+            var now = ticker.read();
+            var old = (TimerWheel.Node<K, V>) shard.map.get(k);
+            // 覆盖未过期的数据为更新
+            var time = old != null && old.maxtime > now
+                       ? e.expireAfter(k, v, Expiry.Event.UPDATE, old.maxtime - now)
+                       : e.expireAfter(k, v, Expiry.Event.CREATE, 0);
+            var node = new TimerWheel.Node<>(k, deadline(now, time), v, endrun);
+            shard.map.put(k, node);
+            if (old != null) {
+                shard.wheel.deschedule(old);
+                replaced(old, now);
+            }
+            shard.wheel.schedule(node);
+        });
+    }
 
     /**
      * 放入数据
@@ -166,8 +344,19 @@ class TimeMapCache<K, V> {
      * @since 0.0.2
      */
     public
-    void putData(@NotNull K k, @Nullable V v, long datatime, @Nullable Consumer<V> endrun)
-    { LOCK.write(() -> map.put(k, new Enty<>(System.currentTimeMillis() + datatime, v, endrun))); }
+    void putData(@NotNull K k, @Nullable V v, long datatime, @Nullable Consumer<V> endrun) {
+        var now = ticker.read();
+        var node = new TimerWheel.Node<>(k, deadline(now, datatime), v, endrun);
+        var shard = shard(k);
+        shard.LOCK.write(() -> {
+            var old = shard.map.put(k, node);
+            if (old != null) {
+                shard.wheel.deschedule((TimerWheel.Node<K, V>) old);
+                replaced((TimerWheel.Node<K, V>) old, now);
+            }
+            shard.wheel.schedule(node);
+        });
+    }
 
     //-------------------------------------
 
@@ -177,22 +366,43 @@ class TimeMapCache<K, V> {
      * @param k 数据的键
      */
     public
-    void removeData(@NotNull K k) { LOCK.write(() -> GcVal(map.remove(k))); }
+    void removeData(@NotNull K k) {
+        var shard = shard(k);
+        shard.LOCK.write(() -> {
+            var v = shard.map.remove(k);
+            if (v != null) {
+                shard.wheel.deschedule((TimerWheel.Node<K, V>) v);
+                removed(k, v.val, RemovalCause.EXPLICIT);
+                var s = statsCounter;
+                if (s != null)
+                    s.recordRemoval(1);
+            }
+            GcVal(v);
+        });
+    }
 
     /**
      * 清除所有数据
      * <p>
-     * <b>不会触发回收事件</b>
+     * 逐个分片清除，<b>不会触发回收事件</b>，绑定了移除监听器时通知每个数据
      */
     public
-    void clear() { LOCK.write(map::clear); }
+    void clear() {
+        for ( var shard : shards )
+            shard.LOCK.write(() -> {
+                if (removalBus != null)
+                    shard.map.forEach((k, v) -> removed(k, v.val, RemovalCause.CLEARED));
+                shard.map.clear();
+                shard.wheel.clear();
+            });
+    }
 
     //-------------------------------------
 
     /**
      * 使用数据
      * <p>
-     * 使用读锁进行
+     * 不占用锁
      *
      * @param k 数据的键
      *
@@ -207,8 +417,9 @@ class TimeMapCache<K, V> {
     /**
      * 使用数据
      * <p>
-     * 如果刷新时间为 0，则使用 {@link SyLock#read(Supplier)} 读锁进行<br/>
-     * 如果需要刷新数据存活时间，则使用 {@link SyLock#write(Supplier)} 写锁进行
+     * 直接读取不占用锁，读取到过期数据时才会占用写锁移除<br/>
+     * 刷新时间不为 0 时以当前时间为基准重新设定存活时间，否则由 {@link #expiry} 计算读取后的存活时间<br/>
+     * 延长存活时间不占用锁，缩短时才会占用写锁并重新放置到时间轮中
      *
      * @param k           数据的键
      * @param newDatatime 数据的新存活时间，从现在开始记录
@@ -220,29 +431,65 @@ class TimeMapCache<K, V> {
     @Nullable
     public
     V getData(@NotNull K k, long newDatatime) {
-        // 运行函数
-        Supplier<V> r = () -> {
-            if (check(k)) {
-                var v = map.remove(k);
+        var shard = shard(k);
+        var s = statsCounter;
+        var v = shard.map.get(k);
+        var now = ticker.read();
+        if (v != null && v.maxtime > now) {
+            if (s != null)
+                s.recordHits(1);
+
+            /* 刷新时间 */
+            if (newDatatime > 0)
+                retime(shard, (TimerWheel.Node<K, V>) v, deadline(now, newDatatime));
+            else {
+                var e = expiry;
+                if (e != null) {
+                    var time = e.expireAfter(k, v.val, Expiry.Event.READ, v.maxtime - now);
+                    retime(shard, (TimerWheel.Node<K, V>) v, deadline(now, time));
+                }
+            }
+            return v.val;
+        }
 
-                // 刷新时间
-                if (newDatatime > 0)
-                    v.setMaxtime(System.currentTimeMillis() + newDatatime);
+        if (s != null)
+            s.recordMisses(1);
+        if (v == null)
+            return null;
 
-                map.put(k, v);
-                return v.val;
+        // 过期，确认后移除
+        shard.LOCK.write(() -> {
+            if (v.maxtime <= ticker.read() && shard.map.remove(k, v)) {
+                shard.wheel.deschedule((TimerWheel.Node<K, V>) v);
+                expired(v);
             }
-            GcVal(map.remove(k));
-            return null;
-        };
+        });
+        return null;
+    }
 
-        // 刷新时间用写锁，不刷新用读锁
-        if (newDatatime <= 0)
-            return LOCK.read(r);
-        else
-            return LOCK.write(r);
+    /**
+     * 修改数据的过期时间
+     * <p>
+     * 延长时只修改记录，不占用锁，时间轮在原本的到期时间检查到未过期后重新放置<br/>
+     * 缩短时占用写锁，仍在缓存中的数据重新放置到时间轮中
+     */
+    private
+    void retime(@NotNull Shard<K, V> shard, @NotNull TimerWheel.Node<K, V> v, long maxtime) {
+        var old = v.maxtime;
+        if (maxtime == old)
+            return;
+        v.maxtime = maxtime;
+        if (maxtime < old)
+            shard.LOCK.write(() -> {
+                if (shard.map.get(v.key) == v)
+                    shard.wheel.schedule(v);
+            });
     }
 
+    // 从现在开始经过 time 的时间点，不会溢出
+    private static
+    long deadline(long now, long time) { return time >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + time; }
+
     /**
      * 检查数据是否可用
      *
@@ -251,12 +498,14 @@ class TimeMapCache<K, V> {
      * @return 可用为 true
      */
     public
-    boolean checkData(@NotNull K k) { return LOCK.read(() -> check(k)); }
+    boolean checkData(@NotNull K k) { return check(k); }
 
     /** 检查数据是否可用 */
     protected
-    boolean check(@NotNull K k)
-    { return map.getOrDefault(k, new Enty<>(0, null, null)).maxtime > System.currentTimeMillis(); }
+    boolean check(@NotNull K k) {
+        var v = shard(k).map.get(k);
+        return v != null && v.maxtime > ticker.read();
+    }
 
     //-------------------------------------
 
@@ -269,31 +518,35 @@ class TimeMapCache<K, V> {
      */
     public
     long dataHasTime(@NotNull K k) {
-        return LOCK.read(() -> Math.max(map.getOrDefault(k, new Enty<>(0, null, null)).maxtime -
-                                        System.currentTimeMillis(), 0));
+        var v = shard(k).map.get(k);
+        return v == null ? 0 : Math.max(v.maxtime - ticker.read(), 0);
     }
 
     /**
      * 统一检查并移除过期数据
      * <p>
-     * 通过占用锁并扫描全部数据来彻底剔除已经过期的数据，时间点以函数开始运行的时间点为准。
+     * 将时间轮推进到当前时间并移除所有到期的数据，时间点以函数开始运行的时间点为准。<br/>
+     * 逐个分片处理，只处理到期的数据，每处理 {@link #scarrenNum} 个数据释放一次锁。
      */
     public
     void trimData() {
-        LOCK.write(() -> {
-            long nowtime = System.currentTimeMillis();
-            var iter = map.entrySet().iterator();
-            // 检查
-            while( iter.hasNext() )
-                CheckVal(iter, nowtime);
-        });
+        var now = ticker.read();
+        for ( var shard : shards )
+            shard.expire(now, scarrenNum, this::expired);
     }
 
-    /** 关闭检查线程 */
+    /**
+     * 关闭检查线程
+     * <p>
+     * 同时关闭定时快照
+     */
     public
     void closeTimeTask() {
         if (timerRun != null)
             timerRun.cancel();
+        var t = snapshotRun;
+        if (t != null)
+            t.cancel();
     }
 
     /**
@@ -309,25 +562,160 @@ class TimeMapCache<K, V> {
         getGcThread().shutdown();
     }
 
-    /*--------------------------------------------------------------------------------------------*/
+    //-------------------------------------
 
     /**
-     * 检查并移除已经过期的数据
+     * 绑定移除监听器
+     * <p>
+     * 使用默认的投递线程池，与回收事件相互独立
      *
-     * @since 0.0.2
+     * @param listener 移除监听器，为 null 则解除绑定
+     *
+     * @since 0.0.9
      */
+    public
+    void setRemovalListener(@Nullable RemovalListener<? super K, ? super V> listener)
+    { removalBus = listener == null ? null : new RemovalBus<>(listener); }
+
+    // 发送移除通知，可在锁中调用
     private
-    void CheckVal(Iterator<Map.Entry<K, Enty<V>>> iter, long nowtime) {
-        // 当前节点
-        var v = iter.next();
-        var val = v.getValue();
-        // 检查是否最大时间
-        if (val.maxtime <= nowtime) {
-            // 移除
-            iter.remove();
-            // 异步执行回收事件
-            GcVal(val);
-        }
+    void removed(@NotNull K k, @Nullable V v, @NotNull RemovalCause cause) {
+        var b = removalBus;
+        if (b != null)
+            b.notify(k, v, cause);
+    }
+
+    // 被覆盖的数据，已过期但还未移除的数据按过期通知
+    private
+    void replaced(@NotNull TimerWheel.Node<K, V> old, long now)
+    { removed(old.key, old.val, old.maxtime > now ? RemovalCause.REPLACED : RemovalCause.EXPIRED); }
+
+    /**
+     * 设置是否开启统计
+     *
+     * @since 0.0.6
+     */
+    public
+    void setRecordStats(boolean recordStats) { statsCounter = recordStats ? new StatsCounter() : null; }
+
+    /**
+     * 获取统计快照
+     *
+     * @return 当前的统计，未开启统计时只有当前数量
+     *
+     * @since 0.0.6
+     */
+    @NotNull
+    public
+    CacheStats stats() {
+        long size = 0;
+        for ( var shard : shards )
+            size += shard.map.size();
+        var s = statsCounter;
+        return s == null ? CacheStats.empty(size) : s.snapshot(size);
+    }
+
+    //-------------------------------------
+
+    /**
+     * 设置快照使用的编码接口
+     *
+     * @param keyCodec   键编码接口
+     * @param valueCodec 数据编码接口
+     *
+     * @since 0.0.8
+     */
+    public
+    void setSnapshotCodec(@NotNull ValueCodec<K> keyCodec, @NotNull ValueCodec<V> valueCodec) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * 写入快照
+     * <p>
+     * 逐个分片遍历数据并以流的方式写入，不占用锁，遍历期间的修改可能不会被写入<br/>
+     * 先写入同目录的临时文件，完成后替换目标文件
+     *
+     * @param path 快照文件
+     *
+     * @return 写入的数量
+     *
+     * @throws IllegalStateException 未设置编码接口
+     * @since 0.0.8
+     */
+    public
+    int snapshotTo(@NotNull Path path) throws Exception {
+        var kc = keyCodec;
+        var vc = valueCodec;
+        if (kc == null || vc == null)
+            throw new IllegalStateException("snapshot codec not set");
+        return TimeSnapshot.write(shards, path, kc, vc, ticker.read());
+    }
+
+    /**
+     * 从快照恢复数据
+     * <p>
+     * 数据的存活时间为写入快照时的剩余时间减去之后经过的时间，已经过期的数据会被跳过<br/>
+     * 覆盖已有的同键数据，恢复的数据没有回收事件
+     *
+     * @param path 快照文件
+     *
+     * @return 恢复的数量
+     *
+     * @throws IllegalStateException 未设置编码接口
+     * @since 0.0.8
+     */
+    public
+    int restoreFrom(@NotNull Path path) throws Exception {
+        var kc = keyCodec;
+        var vc = valueCodec;
+        if (kc == null || vc == null)
+            throw new IllegalStateException("snapshot codec not set");
+        return TimeSnapshot.read(path, kc, vc, (k, e) -> putData(k, e.val, e.remaining));
+    }
+
+    /**
+     * 定时写入快照
+     * <p>
+     * 写入失败时等待下一次写入，通过 {@link #closeTimeTask()} 关闭，重复调用会替换之前的定时
+     *
+     * @param path   快照文件
+     * @param period 写入间隔（毫秒）
+     *
+     * @since 0.0.8
+     */
+    public
+    void scheduleSnapshot(@NotNull Path path, long period) {
+        var t = new Timer();
+        t.schedule(new TimerTask() {
+            @Override
+            public
+            void run() {
+                try {
+                    snapshotTo(path);
+                } catch ( Exception ignored ) {
+                    // 保留上一次的快照
+                }
+            }
+        }, period, period);
+
+        var old = snapshotRun;
+        snapshotRun = t;
+        if (old != null)
+            old.cancel();
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    // 处理过期的数据
+    private
+    void expired(@NotNull Enty<V> v) {
+        var s = statsCounter;
+        if (s != null)
+            s.recordExpired(1);
+        removed(((TimerWheel.Node<K, V>) v).key, v.val, RemovalCause.EXPIRED);
+        GcVal(v);
     }
 
     /**
@@ -350,6 +738,49 @@ class TimeMapCache<K, V> {
 
     /*--------------------------------------------------------------------------------------------*/
 
+    /**
+     * <h2>数据分片.</h2>
+     * 每个分片拥有独立的数据缓存区 {@link #map}、并发管理 {@link #LOCK} 与过期时间索引
+     *
+     * @author fybug
+     * @version 0.0.2
+     * @since TimeMapCache 0.0.5
+     */
+    protected static final
+    class Shard<K, V> {
+        /** 数据缓存区，可不加锁读取 */
+        public final Map<K, Enty<V>> map = new ConcurrentHashMap<>();
+        /** 并发管理 */
+        public final SyLock LOCK;
+        /** 过期时间索引，在锁中操作 */
+        final TimerWheel<K, V> wheel;
+
+        Shard(@NotNull SyLock lock, long now) {
+            LOCK = lock;
+            wheel = new TimerWheel<>(now);
+        }
+
+        /**
+         * 推进时间轮并移除已经过期的数据
+         * <p>
+         * 到期的数据分批处理，每批占用一次写锁
+         *
+         * @param now   当前时间
+         * @param batch 每批处理的数量
+         * @param gc    回收事件处理
+         */
+        void expire(long now, int batch, @NotNull Consumer<Enty<V>> gc) {
+            boolean more = LOCK.write(() -> wheel.advance(now));
+            while( more )
+                more = LOCK.write(() -> wheel.expire(now, batch, v -> {
+                    map.remove(v.key, v);
+                    gc.accept(v);
+                }));
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
     /**
      * 获取缓存构造工具
      *
@@ -367,12 +798,19 @@ class TimeMapCache<K, V> {
      * <ul>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
      * <li>使用 {@link #dataTime(long)} 指定数据存活时间</li>
+     * <li>使用 {@link #expireAfterWrite(long)}、{@link #expireAfterAccess(long)} 或 {@link #expiry(Expiry)} 指定存活时间策略</li>
      * <li>使用 {@link #scarrentime(long)} 指定扫描间隔时间</li>
-     * <li>使用 {@link #scarrenNum(int)} 指定扫描数量</li>
+     * <li>使用 {@link #scarrenNum(int)} 指定每次占用锁处理的数量</li>
+     * <li>使用 {@link #shards(int)} 指定分片数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #snapshot(Path, ValueCodec, ValueCodec)} 绑定快照文件，构造时恢复</li>
+     * <li>使用 {@link #snapshotInterval(long)} 指定定时快照的间隔</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
+     * <li>使用 {@link #ticker(Ticker)} 指定时间来源</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.7
      * @since TimeMapCache 0.0.1
      */
     @Accessors( chain = true, fluent = true )
@@ -382,17 +820,140 @@ class TimeMapCache<K, V> {
         @Setter protected SyLock lockBy = new ObjLock();
         /** 默认数据存活时间 */
         @Setter protected long dataTime = 5 * 60000;
-        /** 扫描时检查的数量 */
+        /** 每次占用锁处理的到期数据数量 */
         @Setter protected int scarrenNum = 20;
         /** 扫描间隔时间 */
         @Setter protected long scarrentime = 24 * 60 * 600000;
+        /**
+         * 分片数量
+         *
+         * @since TimeMapCache.Build 0.0.2
+         */
+        @Setter protected int shards = 1;
+        /**
+         * 是否开启统计
+         *
+         * @since TimeMapCache.Build 0.0.3
+         */
+        protected boolean recordStats = false;
+        /**
+         * 存活时间策略，为空时使用 dataTime
+         *
+         * @since TimeMapCache.Build 0.0.4
+         */
+        @Setter protected Expiry<K, V> expiry;
+        /**
+         * 快照文件
+         *
+         * @since TimeMapCache.Build 0.0.5
+         */
+        protected Path snapshotPath;
+        /** 快照的键编码接口 */
+        protected ValueCodec<K> keyCodec;
+        /** 快照的数据编码接口 */
+        protected ValueCodec<V> valueCodec;
+        /**
+         * 定时快照的间隔，0 为不定时写入
+         *
+         * @since TimeMapCache.Build 0.0.5
+         */
+        @Setter protected long snapshotInterval = 0;
+        /**
+         * 移除监听器
+         *
+         * @since TimeMapCache.Build 0.0.6
+         */
+        @Setter protected RemovalListener<? super K, ? super V> removalListener;
+        /**
+         * 时间来源
+         *
+         * @since TimeMapCache.Build 0.0.7
+         */
+        @Setter @NonNull protected Ticker ticker = Ticker.system();
+
+        /**
+         * 绑定快照文件
+         * <p>
+         * 构造时文件存在则从中恢复，恢复失败时以空缓存启动
+         *
+         * @param path       快照文件
+         * @param keyCodec   键编码接口
+         * @param valueCodec 数据编码接口
+         *
+         * @since TimeMapCache.Build 0.0.5
+         */
+        @NotNull
+        public
+        Build<K, V> snapshot(@NotNull Path path, @NotNull ValueCodec<K> keyCodec, @NotNull ValueCodec<V> valueCodec) {
+            snapshotPath = path;
+            this.keyCodec = keyCodec;
+            this.valueCodec = valueCodec;
+            return this;
+        }
+
+        /**
+         * 使用写入后过期策略
+         *
+         * @param time 存活时间（毫秒）
+         *
+         * @see Expiry#afterWrite(long)
+         * @since TimeMapCache.Build 0.0.4
+         */
+        @NotNull
+        public
+        Build<K, V> expireAfterWrite(long time) {
+            expiry = Expiry.afterWrite(time);
+            return this;
+        }
+
+        /**
+         * 使用访问后过期策略
+         *
+         * @param time 存活时间（毫秒）
+         *
+         * @see Expiry#afterAccess(long)
+         * @since TimeMapCache.Build 0.0.4
+         */
+        @NotNull
+        public
+        Build<K, V> expireAfterAccess(long time) {
+            expiry = Expiry.afterAccess(time);
+            return this;
+        }
+
+        /**
+         * 开启统计
+         *
+         * @since TimeMapCache.Build 0.0.3
+         */
+        @NotNull
+        public
+        Build<K, V> recordStats() {
+            recordStats = true;
+            return this;
+        }
 
         /** 构造 */
         @NotNull
         public
         TimeMapCache<K, V> build() {
-            var c = new TimeMapCache<K, V>(lockBy, dataTime, scarrentime);
+            var c = new TimeMapCache<K, V>(lockBy, dataTime, scarrentime, shards, ticker);
             c.setScarrenNum(scarrenNum);
+            c.setRecordStats(recordStats);
+            c.setExpiry(expiry);
+            c.setRemovalListener(removalListener);
+            if (snapshotPath != null) {
+                c.setSnapshotCodec(keyCodec, valueCodec);
+                if (Files.exists(snapshotPath)) {
+                    try {
+                        c.restoreFrom(snapshotPath);
+                    } catch ( Exception ignored ) {
+                        // 快照损坏或格式不符
+                    }
+                }
+                if (snapshotInterval > 0)
+                    c.scheduleSnapshot(snapshotPath, snapshotInterval);
+            }
             return c;
         }
     }
@@ -412,7 +973,7 @@ class TimeMapCache<K, V> {
     public static
     class Enty<V> {
         /** 过期的时间 */
-        public long maxtime;
+        public volatile long maxtime;
         /** 数据 */
         @Nullable public V val;
         /**
@@ -0,0 +1,220 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import fybug.nulll.pdcache.ValueCodec;
+import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
+
+/**
+ * <h2>时间缓存的快照文件.</h2>
+ * <p>
+ * 以流的方式读写快照，缓冲区只需容纳单条记录，文件格式如下：
+ * <pre>
+ * 文件头： int 标识 | int 版本 | long 快照时间
+ * 记录：   long 剩余存活时间 | int 键长度 | int 数据长度（-1 为 null）| 键 | 数据
+ * 结尾：   long 0 | int -1 | int -1
+ * </pre>
+ * 写入时先写入同目录的临时文件，完成后再替换目标文件，写入中断不会破坏已有的快照<br/>
+ * 读取时剩余存活时间减去快照后经过的时间，已经过期的记录会被跳过，不会解码
+ *
+ * @author fybug
+ * @version 0.0.2
+ * @since TimeMapCache 0.0.8
+ */
+final
+class TimeSnapshot {
+    /** 文件标识 */
+    private static final int MAGIC = 0x50445443;
+    /** 格式版本 */
+    private static final int VERSION = 1;
+    /** 记录头长度 */
+    private static final int HEAD = 16;
+    /** 初始缓冲区大小 */
+    private static final int BUFFER = 64 << 10;
+
+    private TimeSnapshot() {}
+
+    /**
+     * 写入快照
+     * <p>
+     * 逐个分片遍历数据，不占用锁，遍历期间的修改可能不会被写入
+     *
+     * @param shards 数据分片
+     * @param path   快照文件
+     * @param kc     键编码接口
+     * @param vc     数据编码接口
+     * @param now    缓存时间来源的当前时间，用于计算剩余存活时间
+     *
+     * @return 写入的数量
+     */
+    static
+    <K, V> int write(@NotNull TimeMapCache.Shard<K, V>[] shards, @NotNull Path path, @NotNull ValueCodec<K> kc,
+                     @NotNull ValueCodec<V> vc, long now) throws Exception
+    {
+        var tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        var n = 0;
+        try ( var ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                        StandardOpenOption.WRITE) ) {
+            var buf = ByteBuffer.allocate(BUFFER);
+            // 快照时间使用系统时间，用于恢复时计算停机期间经过的时间
+            buf.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+
+            for ( var shard : shards ) {
+                for ( var e : shard.map.entrySet() ) {
+                    var v = e.getValue();
+                    var remaining = v.maxtime - now;
+                    // 已经过期
+                    if (remaining <= 0)
+                        continue;
+
+                    var k = e.getKey();
+                    var val = v.val;
+                    var kl = kc.size(k);
+                    var vl = val == null ? -1 : vc.size(val);
+                    buf = reserve(ch, buf, HEAD + kl + Math.max(vl, 0));
+                    buf.putLong(remaining).putInt(kl).putInt(vl);
+                    encode(kc, k, buf, kl);
+                    if (val != null)
+                        encode(vc, val, buf, vl);
+                    n++;
+                }
+            }
+
+            buf = reserve(ch, buf, HEAD);
+            buf.putLong(0).putInt(-1).putInt(-1);
+            flush(ch, buf);
+            ch.force(true);
+        } catch ( Exception e ) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return n;
+    }
+
+    /**
+     * 读取快照
+     *
+     * @param path 快照文件
+     * @param kc   键编码接口
+     * @param vc   数据编码接口
+     * @param put  未过期记录的处理，传入键、数据与剩余存活时间
+     *
+     * @return 读取的未过期记录数量
+     */
+    static
+    <K, V> int read(@NotNull Path path, @NotNull ValueCodec<K> kc, @NotNull ValueCodec<V> vc,
+                    @NotNull tryBiConsumer<K, Entry<V>, Exception> put) throws Exception
+    {
+        var n = 0;
+        try ( var ch = FileChannel.open(path, StandardOpenOption.READ) ) {
+            var buf = fill(ch, ByteBuffer.allocate(BUFFER).limit(0), HEAD);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                throw new IOException("not a TimeMapCache snapshot: " + path);
+            // 快照后经过的时间
+            var elapsed = Math.max(System.currentTimeMillis() - buf.getLong(), 0);
+
+            while( true ){
+                buf = fill(ch, buf, HEAD);
+                var remaining = buf.getLong() - elapsed;
+                var kl = buf.getInt();
+                var vl = buf.getInt();
+                if (kl < 0)
+                    break;
+
+                var len = kl + Math.max(vl, 0);
+                buf = fill(ch, buf, len);
+                // 停机期间已经过期
+                if (remaining <= 0) {
+                    buf.position(buf.position() + len);
+                    continue;
+                }
+
+                var k = decode(kc, buf, kl);
+                var v = vl < 0 ? null : decode(vc, buf, vl);
+                put.accept(k, new Entry<>(v, remaining));
+                n++;
+            }
+        }
+        return n;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    // 编码到缓冲区当前位置
+    private static
+    <T> void encode(@NotNull ValueCodec<T> codec, @NotNull T v, @NotNull ByteBuffer buf, int len) throws Exception {
+        codec.encode(v, buf.slice(buf.position(), len));
+        buf.position(buf.position() + len);
+    }
+
+    // 从缓冲区当前位置解码
+    @NotNull
+    private static
+    <T> T decode(@NotNull ValueCodec<T> codec, @NotNull ByteBuffer buf, int len) throws Exception {
+        var v = codec.decode(buf.slice(buf.position(), len).asReadOnlyBuffer());
+        buf.position(buf.position() + len);
+        return v;
+    }
+
+    // 确保缓冲区剩余空间足够，不足时写出，单条记录过大时扩容
+    @NotNull
+    private static
+    ByteBuffer reserve(@NotNull FileChannel ch, @NotNull ByteBuffer buf, int len) throws IOException {
+        if (buf.remaining() >= len)
+            return buf;
+        flush(ch, buf);
+        return buf.capacity() >= len ? buf : ByteBuffer.allocate(len);
+    }
+
+    // 写出缓冲区的全部内容
+    private static
+    void flush(@NotNull FileChannel ch, @NotNull ByteBuffer buf) throws IOException {
+        buf.flip();
+        while( buf.hasRemaining() )
+            ch.write(buf);
+        buf.clear();
+    }
+
+    // 确保缓冲区可读的内容足够，不足时读入，单条记录过大时扩容
+    @NotNull
+    private static
+    ByteBuffer fill(@NotNull FileChannel ch, @NotNull ByteBuffer buf, int len) throws IOException {
+        if (buf.remaining() >= len)
+            return buf;
+        if (buf.capacity() < len)
+            buf = ByteBuffer.allocate(len).put(buf);
+        else
+            buf.compact();
+
+        while( buf.position() < len ){
+            if (ch.read(buf) < 0)
+                throw new EOFException("snapshot truncated");
+        }
+        return buf.flip();
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /** 读取的记录 */
+    static final
+    class Entry<V> {
+        @Nullable final V val;
+        /** 剩余存活时间 */
+        final long remaining;
+
+        Entry(@Nullable V val, long remaining) {
+            this.val = val;
+            this.remaining = remaining;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Consumer;
+
+/**
+ * <h2>分层时间轮.</h2>
+ * <p>
+ * 按过期时间将数据放入不同精度的时间槽中，共 5 层，每层 64 个槽<br/>
+ * 各层的槽宽度依次为 64 毫秒、4.1 秒、4.4 分钟、4.7 小时、12.4 天，超出最后一层范围的数据在轮转后重新放置
+ * <br/><br/>
+ * 推进时间时只会取出已经到期的槽，移入待处理队列，其中未过期的数据会重新放置到更低的层中<br/>
+ * 待处理队列可分批处理，因此推进与处理的开销只与到期的数据数量相关，与数据总量无关
+ * <br/><br/>
+ * <b>该工具不是线程安全的，需要在外部加锁</b>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @since TimeMapCache 0.0.4
+ */
+final
+class TimerWheel<K, V> {
+    /** 每层的槽数量 */
+    private static final int BUCKETS = 64;
+    /** 每层槽宽度的位移 */
+    private static final int[] SHIFT = {6, 12, 18, 24, 30};
+    /** 每层的覆盖范围 */
+    private static final long[] SPANS = {1L << 6, 1L << 12, 1L << 18, 1L << 24, 1L << 30, 1L << 36};
+
+    /** 时间槽，每个槽为带哨兵的环形链表 */
+    private final Node<K, V>[][] wheel;
+    /** 已到期待处理的数据 */
+    private final Node<K, V> pending = Node.sentinel();
+    /** 当前时间 */
+    private long time;
+
+    /**
+     * 构造时间轮
+     *
+     * @param time 起始时间
+     */
+    TimerWheel(long time) {
+        this.time = time;
+        wheel = new Node[SHIFT.length][BUCKETS];
+        for ( var level : wheel ) {
+            for ( int i = 0; i < level.length; i++ )
+                level[i] = Node.sentinel();
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 放置数据
+     * <p>
+     * 已放置的数据会先移出原位置
+     */
+    void schedule(@NotNull Node<K, V> node) {
+        node.unlink();
+        findBucket(node.maxtime).link(node);
+    }
+
+    /** 移除数据 */
+    void deschedule(@NotNull Node<K, V> node) { node.unlink(); }
+
+    /**
+     * 推进时间
+     * <p>
+     * 将到期的槽移入待处理队列，只会访问到期的槽
+     *
+     * @param now 当前时间
+     *
+     * @return 是否有待处理的数据
+     *
+     * @see #expire(long, int, Consumer)
+     */
+    boolean advance(long now) {
+        var prev = time;
+        if (now > prev) {
+            time = now;
+            for ( int i = 0; i < SHIFT.length; i++ ) {
+                var prevTicks = prev >>> SHIFT[i];
+                var delta = (now >>> SHIFT[i]) - prevTicks;
+                if (delta <= 0)
+                    break;
+
+                // 包含上次所在的槽
+                var steps = (int) Math.min(delta + 1, BUCKETS);
+                var start = (int) (prevTicks & (BUCKETS - 1));
+                for ( int j = start; j < start + steps; j++ )
+                    pending.splice(wheel[i][j & (BUCKETS - 1)]);
+            }
+        }
+        return pending.next != pending;
+    }
+
+    /**
+     * 处理待处理队列
+     * <p>
+     * 过期的数据移出时间轮后交由 evict 处理，未过期的数据重新放置
+     *
+     * @param now   当前时间
+     * @param max   本次最多处理的数量
+     * @param evict 过期数据处理接口
+     *
+     * @return 是否还有待处理的数据
+     */
+    boolean expire(long now, int max, @NotNull Consumer<Node<K, V>> evict) {
+        for ( int i = Math.max(max, 1); i > 0 && pending.next != pending; i-- ) {
+            var node = pending.next;
+            if (node.maxtime <= now) {
+                node.unlink();
+                evict.accept(node);
+            } else
+                schedule(node);
+        }
+        return pending.next != pending;
+    }
+
+    /** 清空时间轮 */
+    void clear() {
+        for ( var level : wheel ) {
+            for ( var sentinel : level )
+                sentinel.prev = sentinel.next = sentinel;
+        }
+        pending.prev = pending.next = pending;
+    }
+
+    // 过期时间所在的槽
+    @NotNull
+    private
+    Node<K, V> findBucket(long maxtime) {
+        // 已过期的放入当前槽，下次推进时处理
+        var t = Math.max(maxtime, time);
+        var duration = t - time;
+
+        int last = SHIFT.length - 1;
+        for ( int i = 0; i < last; i++ ) {
+            if (duration < SPANS[i + 1])
+                return wheel[i][(int) ((t >>> SHIFT[i]) & (BUCKETS - 1))];
+        }
+        return wheel[last][(int) ((t >>> SHIFT[last]) & (BUCKETS - 1))];
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>时间轮中的数据记录.</h2>
+     * 在 {@link TimeMapCache.Enty} 的基础上记录键与所在的链表位置
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since TimerWheel 0.0.1
+     */
+    static final
+    class Node<K, V> extends TimeMapCache.Enty<V> {
+        /** 数据的键 */
+        final K key;
+        @Nullable Node<K, V> prev, next;
+
+        Node(K key, long maxtime, @Nullable V val, @Nullable Consumer<V> endrun) {
+            super(maxtime, val, endrun);
+            this.key = key;
+        }
+
+        // 生成哨兵
+        @NotNull
+        static
+        <K, V> Node<K, V> sentinel() {
+            var s = new Node<K, V>(null, 0, null, null);
+            s.prev = s.next = s;
+            return s;
+        }
+
+        // 添加到当前哨兵的链表末尾
+        void link(@NotNull Node<K, V> node) {
+            node.prev = prev;
+            node.next = this;
+            prev.next = node;
+            prev = node;
+        }
+
+        // 从所在链表移除
+        void unlink() {
+            if (next != null) {
+                prev.next = next;
+                next.prev = prev;
+                prev = next = null;
+            }
+        }
+
+        // 将另一个哨兵的链表整体移到当前哨兵的链表末尾
+        void splice(@NotNull Node<K, V> other) {
+            if (other.next == other)
+                return;
+            var first = other.next;
+            var last = other.prev;
+            first.prev = prev;
+            prev.next = first;
+            last.next = this;
+            prev = last;
+            other.prev = other.next = other;
+        }
+    }
+}
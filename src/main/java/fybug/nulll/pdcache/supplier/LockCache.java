@@ -5,6 +5,7 @@ import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
 import java.util.function.Supplier;
 
+import fybug.nulll.pdcache.RemovalListener;
 import fybug.nulll.pdconcurrent.ObjLock;
 import fybug.nulll.pdconcurrent.SyLock;
 import lombok.Setter;
@@ -67,10 +68,11 @@ class LockCache extends SCache<SyLock> {
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #sylock(Class)} 绑定缓存的锁的类型</li>
      * <li>使用 {@link #sylock(Supplier)} 绑定缓存的锁的生成方法</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定锁的移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.2
      * @since LockCache 0.0.1
      */
     @Accessors( chain = true, fluent = true )
@@ -80,6 +82,12 @@ class LockCache extends SCache<SyLock> {
         @Setter private Class<? extends Reference> refernce = SoftReference.class;
         /** 缓存的锁的生成方法 */
         private Supplier<SyLock> sylock = ObjLock::new;
+        /**
+         * 锁的移除监听器
+         *
+         * @since LockCache.Build 0.0.2
+         */
+        @Setter private RemovalListener<?, ? super SyLock> removalListener;
 
         //------------------------------------------------------------------------------------------
 
@@ -106,6 +114,10 @@ class LockCache extends SCache<SyLock> {
          */
         @NotNull
         public
-        LockCache build() { return new LockCache(refernce, sylock); }
+        LockCache build() {
+            var c = new LockCache(refernce, sylock);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
     }
 }
@@ -3,10 +3,16 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.ref.Reference;
 import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.function.Supplier;
 
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdconcurrent.ObjLock;
 import fybug.nulll.pdconcurrent.SyLock;
+import fybug.nulll.pdconcurrent.fun.trySupplier;
+import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
@@ -15,19 +21,58 @@ import lombok.experimental.Accessors;
  * <p>
  * 基于自填充映射缓存 {@link SMapCache} 制作的用于维持多个锁的一致性，并在长期不用的时候释放锁的工具<br/>
  * 用法与 {@link SMapCache} 一致，并且内部并发管理指定为 {@link ObjLock}
+ * <br/><br/>
+ * 指定分条数量后使用分条模式，{@link #get(K)} 按键的哈希返回预先生成的分条锁，不占用锁也不产生新的对象，
+ * 不同的键可能共用同一个锁<br/>
+ * 同时指定热点判定次数时使用混合模式，同一个键连续多次在有其他线程等待时持有分条锁，会为该键生成独立的锁，
+ * 之后该键不再与其他键共用锁，独立的锁长期不用时按缓存方式释放并回到分条锁<br/>
+ * 混合模式下 {@link #get(K)} 返回绑定了键的锁视图，在加锁时选择实际使用的锁，请不要手动移除其中的锁
+ * <br/><br/>
+ * 也可使用 {@link #acquire(K)} 获取按持有数量管理的锁，最后一个持有者关闭后立即移除该锁，
+ * 占用的内存只与正在使用的键数量相关，不依赖回收时机<br/>
+ * 该方式与 {@link #get(K)} 获取的锁相互独立，同一个键请只使用其中一种方式
  *
  * @param <K> 锁缓存的键类型
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.5
  * @see SMapCache
  * @see SyLockSupp
  * @since supplier 0.0.2
  */
 public
 class LockMapCache<K> extends SMapCache<K, SyLock> {
+    /** 需要重新选择锁 */
+    private static final Object RETRY = new Object();
+
     /** 缓存的锁的生成方法 */
     private final Supplier<SyLock> LOCK_SUPP;
+    /**
+     * 分条锁，未使用分条模式时为 null
+     *
+     * @since 0.0.3
+     */
+    private final SyLock[] stripes;
+    /** 分条下标掩码 */
+    private final int stripeMask;
+    /**
+     * 热点键的判定次数，0 为不使用混合模式
+     *
+     * @since 0.0.3
+     */
+    @Getter private final int hotThreshold;
+    /** 各分条最近持有的键，只在持有分条锁时访问 */
+    private final Object[] stripeKey;
+    /** 各分条最近持有的键的连续次数，只在持有分条锁时访问 */
+    private final int[] stripeStreak;
+    /** 各分条等待中的线程数量 */
+    private final AtomicIntegerArray stripeWaiting;
+    /**
+     * 按持有数量管理的锁
+     *
+     * @since 0.0.4
+     */
+    private final ConcurrentHashMap<K, Counted> counted = new ConcurrentHashMap<>();
 
     /**
      * 构造缓存，指定缓存方式和缓存的锁类型
@@ -41,9 +86,55 @@ class LockMapCache<K> extends SMapCache<K, SyLock> {
     /** 构造缓存，指定缓存方式和缓存的锁的生成方法 */
     public
     LockMapCache(@NotNull Class<? extends Reference> refc, @NotNull Supplier<SyLock> syLockSupplier)
+    { this(refc, syLockSupplier, 1); }
+
+    /**
+     * 构造缓存，指定缓存方式、缓存的锁的生成方法和分段数量
+     *
+     * @since 0.0.2
+     */
+    public
+    LockMapCache(@NotNull Class<? extends Reference> refc, @NotNull Supplier<SyLock> syLockSupplier,
+                 int segments)
+    { this(refc, syLockSupplier, segments, 0, 0); }
+
+    /**
+     * 构造缓存，指定缓存方式、缓存的锁的生成方法、分段数量和分条模式
+     *
+     * @param stripes      分条数量，会取整为 2 的幂，小于等于 0 为不使用分条模式
+     * @param hotThreshold 热点键的判定次数，小于等于 0 为不使用混合模式
+     *
+     * @since 0.0.3
+     */
+    public
+    LockMapCache(@NotNull Class<? extends Reference> refc, @NotNull Supplier<SyLock> syLockSupplier,
+                 int segments, int stripes, int hotThreshold)
     {
-        super(refc, SyLock.newObjLock());
+        super(refc, SyLock.newObjLock(), segments);
         LOCK_SUPP = syLockSupplier;
+
+        if (stripes > 0) {
+            var n = stripes == 1 ? 1 : Integer.highestOneBit(Math.min(stripes, 1 << 16) - 1) << 1;
+            this.stripes = new SyLock[n];
+            for ( int i = 0; i < n; i++ )
+                this.stripes[i] = syLockSupplier.get();
+            stripeMask = n - 1;
+        } else {
+            this.stripes = null;
+            stripeMask = 0;
+        }
+
+        if (this.stripes != null && hotThreshold > 0) {
+            this.hotThreshold = hotThreshold;
+            stripeKey = new Object[this.stripes.length];
+            stripeStreak = new int[this.stripes.length];
+            stripeWaiting = new AtomicIntegerArray(this.stripes.length);
+        } else {
+            this.hotThreshold = 0;
+            stripeKey = null;
+            stripeStreak = null;
+            stripeWaiting = null;
+        }
     }
 
     /*--------------------------------------------------------------------------------------------*/
@@ -53,6 +144,274 @@ class LockMapCache<K> extends SMapCache<K, SyLock> {
     protected
     SyLock createData(@NotNull K key) { return LOCK_SUPP.get(); }
 
+    /**
+     * 获取键对应的锁
+     * <p>
+     * 分条模式下返回分条锁，混合模式下返回绑定了键的锁视图
+     *
+     * @param key 缓存的键
+     *
+     * @return 键对应的锁
+     */
+    @NotNull
+    @Override
+    public
+    SyLock get(@NotNull K key) throws Exception, CacheError {
+        if (stripes == null)
+            return super.get(key);
+        if (hotThreshold == 0)
+            return stripes[stripeIndex(key)];
+        return new KeyLock(key);
+    }
+
+    /**
+     * 获取分条数量
+     *
+     * @return 分条数量，未使用分条模式时为 0
+     *
+     * @since 0.0.3
+     */
+    public
+    int getStripes() { return stripes == null ? 0 : stripes.length; }
+
+    /**
+     * 检查键是否已使用独立的锁
+     *
+     * @param key 缓存的键
+     *
+     * @return 混合模式下该键已被判定为热点时为 true
+     *
+     * @since 0.0.3
+     */
+    public
+    boolean isHot(@NotNull K key) { return hotThreshold > 0 && peekdata(key) != null; }
+
+    // 键所在的分条下标
+    private
+    int stripeIndex(@NotNull K key) {
+        var h = key.hashCode();
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * 使用键对应的锁运行
+     * <p>
+     * 已判定为热点的键使用独立的锁，否则使用分条锁，并在分条锁内再次检查，避免与判定后的独立锁同时运行<br/>
+     * 热点判定只在写锁内进行，并在当前任务运行完后才放入独立的锁
+     *
+     * @param key   缓存的键
+     * @param write 是否为写锁
+     * @param ec    任务的异常类型
+     * @param run   任务
+     *
+     * @return 任务的返回值
+     */
+    @SuppressWarnings( "unchecked" )
+    private
+    <T, E extends Exception> T hybrid(@NotNull K key, boolean write, @NotNull Class<E> ec,
+                                      @NotNull trySupplier<T, E> run) throws E
+    {
+        while( true ) {
+            /* 热点键 */
+            var hot = peekdata(key);
+            if (hot != null) {
+                try {
+                    return write ? hot.trywrite(ec, run) : hot.tryread(ec, run);
+                } finally {
+                    // 独立的锁只由缓存的引用持有，运行期间被回收会让其他线程进入分条锁
+                    Reference.reachabilityFence(hot);
+                }
+            }
+
+            var i = stripeIndex(key);
+            var stripe = stripes[i];
+            Object r;
+            stripeWaiting.incrementAndGet(i);
+            if (write) {
+                r = stripe.trywrite(ec, () -> {
+                    var contended = stripeWaiting.decrementAndGet(i) > 0;
+                    if (peekdata(key) != null)
+                        return RETRY;
+                    var v = run.get();
+                    streak(i, key, contended);
+                    return v;
+                });
+            } else {
+                r = stripe.tryread(ec, () -> {
+                    stripeWaiting.decrementAndGet(i);
+                    if (peekdata(key) != null)
+                        return RETRY;
+                    return run.get();
+                });
+            }
+            if (r != RETRY)
+                return (T) r;
+        }
+    }
+
+    // 记录分条的连续持有，达到判定次数时为该键放入独立的锁
+    private
+    void streak(int i, @NotNull K key, boolean contended) {
+        if (!key.equals(stripeKey[i])) {
+            stripeKey[i] = key;
+            stripeStreak[i] = 0;
+        }
+        if (!contended || ++stripeStreak[i] < hotThreshold)
+            return;
+
+        stripeKey[i] = null;
+        stripeStreak[i] = 0;
+        if (isClose())
+            return;
+        try {
+            putdata(key, LOCK_SUPP.get());
+        } catch ( Exception ignored ) {
+            // 判定失败时继续使用分条锁
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * 持有键对应的锁
+     * <p>
+     * 同一个键的持有者共用同一个锁，该锁在最后一个持有者关闭后移除<br/>
+     * 返回的持有对象可直接作为锁使用，请在使用完后关闭
+     * <pre>
+     * try (var lock = cache.acquire(key)) {
+     *     lock.write(() -> ...);
+     * }
+     * </pre>
+     *
+     * @param key 缓存的键
+     *
+     * @return 锁的持有对象
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    public
+    Handle acquire(@NotNull K key) {
+        var c = counted.compute(key, (k, v) -> {
+            if (v == null)
+                v = new Counted(LOCK_SUPP.get());
+            v.refs++;
+            return v;
+        });
+        return new Handle(key, c.lock);
+    }
+
+    /**
+     * 获取正在持有的键数量
+     *
+     * @return 使用 {@link #acquire(K)} 持有且未全部关闭的键数量
+     *
+     * @since 0.0.4
+     */
+    public
+    int acquiredSize() { return counted.size(); }
+
+    // 释放一次持有，没有持有者时移除
+    private
+    void release(@NotNull K key)
+    { counted.computeIfPresent(key, (k, v) -> --v.refs == 0 ? null : v); }
+
+    // 持有数量与锁，只在映射的计算中修改
+    private static final
+    class Counted {
+        final SyLock lock;
+        int refs = 0;
+
+        Counted(@NotNull SyLock lock) { this.lock = lock; }
+    }
+
+    /**
+     * <h2>锁的持有对象.</h2>
+     * 关闭后释放对该键的持有，重复关闭无效
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since LockMapCache 0.0.4
+     */
+    public final
+    class Handle implements SyLock, AutoCloseable {
+        private final K key;
+        private final SyLock lock;
+        private boolean closed = false;
+
+        Handle(@NotNull K key, @NotNull SyLock lock) {
+            this.key = key;
+            this.lock = lock;
+        }
+
+        /** 获取持有的锁 */
+        @NotNull
+        public
+        SyLock getLock() { return lock; }
+
+        @Override
+        public
+        <T> T read(Supplier<T> run) { return lock.read(run); }
+
+        @Override
+        public
+        <T> T write(Supplier<T> run) { return lock.write(run); }
+
+        @Override
+        public
+        <T, E extends Exception> T tryread(Class<E> ec, trySupplier<T, E> run) throws E
+        { return lock.tryread(ec, run); }
+
+        @Override
+        public
+        <T, E extends Exception> T trywrite(Class<E> ec, trySupplier<T, E> run) throws E
+        { return lock.trywrite(ec, run); }
+
+        @Override
+        public
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+            release(key);
+        }
+    }
+
+    /**
+     * <h2>绑定了键的锁视图.</h2>
+     * 每次加锁时重新选择实际使用的锁
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since LockMapCache 0.0.3
+     */
+    private final
+    class KeyLock implements SyLock {
+        private final K key;
+
+        KeyLock(@NotNull K key) { this.key = key; }
+
+        @Override
+        public
+        <T> T read(Supplier<T> run) { return hybrid(key, false, RuntimeException.class, run::get); }
+
+        @Override
+        public
+        <T> T write(Supplier<T> run) { return hybrid(key, true, RuntimeException.class, run::get); }
+
+        @Override
+        public
+        <T, E extends Exception> T tryread(Class<E> ec, trySupplier<T, E> run) throws E
+        { return hybrid(key, false, ec, run); }
+
+        @Override
+        public
+        <T, E extends Exception> T trywrite(Class<E> ec, trySupplier<T, E> run) throws E
+        { return hybrid(key, true, ec, run); }
+    }
+
     /*--------------------------------------------------------------------------------------------*/
 
     /**
@@ -71,12 +430,16 @@ class LockMapCache<K> extends SMapCache<K, SyLock> {
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #sylock(Class)} 绑定缓存的锁的类型</li>
      * <li>使用 {@link #sylock(Supplier)} 绑定缓存的锁的生成方法</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #stripes(int)} 使用分条模式</li>
+     * <li>使用 {@link #hotThreshold(int)} 在分条模式下为热点键使用独立的锁</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定锁的移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
      * @param <K> 缓存键类型
      *
-     * @version 0.0.1
+     * @version 0.0.4
      * @since LockMapCache 0.0.1
      */
     @Accessors( chain = true, fluent = true )
@@ -86,6 +449,30 @@ class LockMapCache<K> extends SMapCache<K, SyLock> {
         @Setter private Class<? extends Reference> refernce = SoftReference.class;
         /** 缓存的锁的生成方法 */
         private Supplier<SyLock> sylock = ObjLock::new;
+        /**
+         * 分段数量
+         *
+         * @since LockMapCache.Build 0.0.2
+         */
+        @Setter private int segments = 1;
+        /**
+         * 分条数量，0 为不使用分条模式
+         *
+         * @since LockMapCache.Build 0.0.3
+         */
+        @Setter private int stripes = 0;
+        /**
+         * 热点键的判定次数，0 为不使用混合模式
+         *
+         * @since LockMapCache.Build 0.0.3
+         */
+        @Setter private int hotThreshold = 0;
+        /**
+         * 映射中的锁的移除监听器
+         *
+         * @since LockMapCache.Build 0.0.4
+         */
+        @Setter private RemovalListener<? super K, ? super SyLock> removalListener;
 
         //------------------------------------------------------------------------------------------
 
@@ -113,6 +500,10 @@ class LockMapCache<K> extends SMapCache<K, SyLock> {
          */
         @NotNull
         public
-        LockMapCache<K> build() { return new LockMapCache<>(refernce, sylock); }
+        LockMapCache<K> build() {
+            var c = new LockMapCache<K>(refernce, sylock, segments, stripes, hotThreshold);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
     }
 }
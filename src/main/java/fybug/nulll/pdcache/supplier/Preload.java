@@ -0,0 +1,180 @@
+package fybug.nulll.pdcache.supplier;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
+
+/**
+ * <h2>预加载任务.</h2>
+ * <p>
+ * 由固定数量的工作任务并行从同一个键序列中取出键进行填充，同时运行的填充数量不超过工作任务的数量<br/>
+ * 每个工作任务每次取出一批键，批量大小为 1 时逐个填充<br/>
+ * 填充失败的键记录在 {@link #getFailures()} 中，不影响其他键的填充
+ * <br/><br/>
+ * 运行期间可通过 {@link #getLoaded()}、{@link #getFailed()}、{@link #getSkipped()} 查看进度，
+ * 通过 {@link #future()} 等待完成
+ *
+ * @param <K> 键的类型
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see SMapCache#preload(Iterable)
+ * @since supplier 0.0.3
+ */
+public final
+class Preload<K> {
+    /** 键序列 */
+    private final Iterator<? extends K> keys;
+    /** 每批的数量 */
+    private final int batch;
+    /** 填充一批键，结果通过 {@link #loaded(int)}、{@link #skipped(int)} 记录 */
+    private final tryBiConsumer<Preload<K>, List<K>, Exception> loader;
+
+    /** 填充成功的数量 */
+    private final LongAdder loaded = new LongAdder();
+    /** 已有数据而跳过的数量 */
+    private final LongAdder skipped = new LongAdder();
+    /** 填充失败的键与异常 */
+    private final Map<K, Throwable> failures = new ConcurrentHashMap<>();
+    /** 运行中的工作任务 */
+    private final AtomicInteger running = new AtomicInteger();
+    /** 完成的结果 */
+    private final CompletableFuture<Preload<K>> future = new CompletableFuture<>();
+    /** 是否停止取出新的键 */
+    private volatile boolean stop = false;
+
+    Preload(@NotNull Iterator<? extends K> keys, int batch,
+            @NotNull tryBiConsumer<Preload<K>, List<K>, Exception> loader)
+    {
+        this.keys = keys;
+        this.batch = Math.max(batch, 1);
+        this.loader = loader;
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 启动工作任务
+     *
+     * @param executor    运行的线程池
+     * @param parallelism 工作任务数量
+     */
+    @NotNull
+    Preload<K> start(@NotNull Executor executor, int parallelism) {
+        var n = Math.max(parallelism, 1);
+        running.set(n);
+        for ( int i = 0; i < n; i++ ) {
+            try {
+                executor.execute(this::work);
+            } catch ( Throwable e ) {
+                fail(e);
+                done();
+            }
+        }
+        return this;
+    }
+
+    // 工作任务，持续取出键直到序列结束
+    private
+    void work() {
+        try {
+            List<K> list;
+            while( !(list = next()).isEmpty() ){
+                try {
+                    loader.accept(this, list);
+                } catch ( Throwable e ) {
+                    for ( K k : list )
+                        failed(k, e);
+                }
+            }
+        } catch ( Throwable e ) {
+            // 键序列异常
+            fail(e);
+        } finally {
+            done();
+        }
+    }
+
+    // 取出下一批键
+    @NotNull
+    private
+    List<K> next() {
+        if (stop)
+            return Collections.emptyList();
+        synchronized ( keys ){
+            var list = new ArrayList<K>(batch);
+            while( list.size() < batch && keys.hasNext() )
+                list.add(keys.next());
+            return list;
+        }
+    }
+
+    // 停止并以异常结束
+    private
+    void fail(@NotNull Throwable e) {
+        stop = true;
+        future.completeExceptionally(e);
+    }
+
+    // 工作任务结束
+    private
+    void done() {
+        if (running.decrementAndGet() == 0)
+            future.complete(this);
+    }
+
+    /** 记录填充成功 */
+    void loaded(int n) { loaded.add(n); }
+
+    /** 记录已有数据而跳过 */
+    void skipped(int n) { skipped.add(n); }
+
+    /** 记录填充失败 */
+    void failed(@NotNull K key, @NotNull Throwable e) { failures.put(key, e); }
+
+    //----------------------------------------------------------------------------------------------
+
+    /** 停止取出新的键，正在填充的键会继续完成 */
+    public
+    void cancel() { stop = true; }
+
+    /** 填充成功的数量 */
+    public
+    long getLoaded() { return loaded.sum(); }
+
+    /** 已有数据而跳过的数量 */
+    public
+    long getSkipped() { return skipped.sum(); }
+
+    /** 填充失败的数量 */
+    public
+    long getFailed() { return failures.size(); }
+
+    /** 填充失败的键与异常 */
+    @NotNull
+    public
+    Map<K, Throwable> getFailures() { return Collections.unmodifiableMap(failures); }
+
+    /** 是否已经结束 */
+    public
+    boolean isDone() { return future.isDone(); }
+
+    /**
+     * 等待完成的任务
+     * <p>
+     * 所有工作任务结束后完成，键序列抛出异常时以该异常失败
+     */
+    @NotNull
+    public
+    CompletableFuture<Preload<K>> future() { return future.copy(); }
+}
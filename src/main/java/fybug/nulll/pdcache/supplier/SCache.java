@@ -2,20 +2,32 @@ package fybug.nulll.pdcache.supplier;
 import org.jetbrains.annotations.NotNull;
 
 import java.lang.ref.Reference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
 import fybug.nulll.pdcache.CacheOb;
 import fybug.nulll.pdcache.MemoryCache;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdcache.memory.Cache;
 import fybug.nulll.pdconcurrent.SyLock;
 import fybug.nulll.pdconcurrent.fun.tryConsumer;
 import fybug.nulll.pdconcurrent.fun.trySupplier;
+import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
 /**
  * <h2>自填充数据缓存工具.</h2>
  * <p>
- * 只缓存一个对象的缓存工具，需要指定数据填充方法，在没有数据的时候会进行自填充
+ * 只缓存一个对象的缓存工具，需要指定数据填充方法，在没有数据的时候会进行自填充<br/>
+ * 填充在锁外进行，同时只会有一个填充任务，其余线程等待该任务的结果<br/>
+ * 可使用 {@link #getAsync()} 异步获取，填充任务在 {@link #setLoadExecutor(Executor)} 指定的线程池中运行，
+ * 默认为 {@link ForkJoinPool#commonPool()}，也可使用 {@link #preload()} 提前在后台填充
  * <br/><br/>
  * 使用示例
  * <pre>使用普通的缓存数据
@@ -53,12 +65,27 @@ import lombok.experimental.Accessors;
  * </pre>
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.7
  * @see Cache
  * @since supplier 0.0.1
  */
 public abstract
 class SCache<V> extends MemoryCache<V> {
+    /**
+     * 正在进行的填充任务
+     *
+     * @since 0.0.4
+     */
+    protected final AtomicReference<CompletableFuture<V>> loading = new AtomicReference<>();
+    /**
+     * 异步填充使用的线程池
+     *
+     * @since 0.0.4
+     */
+    @NonNull
+    @Setter
+    @Getter
+    protected volatile Executor loadExecutor = ForkJoinPool.commonPool();
 
     /**
      * 构造缓存，指定缓存方式
@@ -89,6 +116,83 @@ class SCache<V> extends MemoryCache<V> {
     public
     V get() throws Exception { return super.get(); }
 
+    /**
+     * 异步获取缓存数据
+     * <p>
+     * 命中时返回已完成的任务，否则在 {@link #getLoadExecutor()} 中填充<br/>
+     * 正在填充时共享该次填充的结果
+     *
+     * @return 获取数据的任务，缓存被关闭时以 {@link CacheError} 失败
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    public
+    CompletableFuture<V> getAsync() {
+        if (isClose())
+            return CompletableFuture.failedFuture(new CacheError());
+
+        var v = peekdata();
+        var s = statsCounter;
+        if (v != null) {
+            if (s != null)
+                s.recordHits(1);
+            return CompletableFuture.completedFuture(v);
+        }
+        if (s != null)
+            s.recordMisses(1);
+        return loadAsync();
+    }
+
+    /**
+     * 预加载数据
+     * <p>
+     * 没有数据时在 {@link #getLoadExecutor()} 中填充，不计入命中统计<br/>
+     * 正在填充时共享该次填充的结果
+     *
+     * @return 填充的任务，已有数据时为已完成的任务，缓存被关闭时以 {@link CacheError} 失败
+     *
+     * @since 0.0.6
+     */
+    @NotNull
+    public
+    CompletableFuture<V> preload() {
+        if (isClose())
+            return CompletableFuture.failedFuture(new CacheError());
+
+        var v = peekdata();
+        return v == null ? loadAsync() : CompletableFuture.completedFuture(v);
+    }
+
+    // 在线程池中填充
+    @NotNull
+    private
+    CompletableFuture<V> loadAsync() {
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        if (!loading.compareAndSet(null, task)) {
+            var run = loading.get();
+            if (run != null)
+                return run.copy();
+            // 填充任务刚刚结束
+            return preload();
+        }
+
+        try {
+            loadExecutor.execute(() -> {
+                try {
+                    load(task);
+                } catch ( Throwable ignored ) {
+                    // 异常已经传递给任务
+                }
+            });
+        } catch ( Throwable e ) {
+            task.completeExceptionally(e);
+            loading.compareAndSet(task, null);
+        }
+        return task.copy();
+    }
+
     //-----------------------------------
 
     /** 创建新的数据 */
@@ -99,16 +203,79 @@ class SCache<V> extends MemoryCache<V> {
     /**
      * 生成新的缓存
      * <p>
-     * 使用 {@link #createData()} 创建的数据生成
+     * 使用 {@link #createData()} 创建的数据生成，同时只有一个线程会运行 {@link #createData()}
      */
     @Override
     protected @NotNull
     V emptyData() throws Exception {
-        // 生成新的数据
-        var v = createData();
-        // 绑定缓存
-        putdata(v);
-        return v;
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        while( !loading.compareAndSet(null, task) ){
+            var run = loading.get();
+            if (run != null)
+                return await(run);
+        }
+        return load(task);
+    }
+
+    /**
+     * 运行填充任务
+     * <p>
+     * 结果或异常会传递给 {@code task}，完成后从 {@link #loading} 中移除
+     *
+     * @param task 当前的填充任务
+     *
+     * @return 填充的数据
+     *
+     * @since 0.0.4
+     */
+    @NotNull
+    protected
+    V load(@NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            // 上一次填充可能刚刚完成
+            var v = peekdata();
+            if (v == null) {
+                // 生成新的数据
+                var s = statsCounter;
+                var start = s == null ? 0 : System.nanoTime();
+                try {
+                    v = createData();
+                } catch ( Throwable e ) {
+                    if (s != null)
+                        s.recordLoadFailure(System.nanoTime() - start);
+                    throw e;
+                }
+                if (s != null)
+                    s.recordLoadSuccess(System.nanoTime() - start);
+                // 绑定缓存
+                putdata(v);
+            }
+            task.complete(v);
+            return v;
+        } catch ( Throwable e ) {
+            // 通知所有等待的线程
+            task.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.compareAndSet(task, null);
+        }
+    }
+
+    // 等待填充任务，抛出填充时的异常
+    @NotNull
+    private static
+    <V> V await(@NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            return task.get();
+        } catch ( ExecutionException e ) {
+            var cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
     }
 
     /*--------------------------------------------------------------------------------------------*/
@@ -130,10 +297,13 @@ class SCache<V> extends MemoryCache<V> {
      * <li>使用 {@link #createdata(trySupplier)} 绑定数据生成接口</li>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #executor(Executor)} 指定异步填充使用的线程池</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.5
      * @since SCache 0.0.1
      */
     @Accessors( chain = true, fluent = true )
@@ -141,14 +311,25 @@ class SCache<V> extends MemoryCache<V> {
     class Build<V> extends CacheOb.Build<V, Build<V>> {
         /** 数据生产接口 */
         @Setter private trySupplier<@NotNull V, Exception> createdata;
+        /**
+         * 异步填充使用的线程池
+         *
+         * @since SCache.Build 0.0.2
+         */
+        @Setter private Executor executor = ForkJoinPool.commonPool();
 
         @NotNull
         public
         SCache<V> build() {
-            return new SCache<>(refernce, lockBy) {
+            var c = new SCache<V>(refernce, lockBy) {
                 protected @NotNull
                 V createData() throws Exception { return createdata.get(); }
             };
+            c.setLoadExecutor(executor);
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setRemovalListener(removalListener);
+            return c;
         }
     }
 }
@@ -0,0 +1,234 @@
+package fybug.nulll.pdcache.supplier;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import fybug.nulll.pdcache.LongMapCacheOb;
+import fybug.nulll.pdcache.RemovalListener;
+import fybug.nulll.pdcache.err.CacheError;
+import fybug.nulll.pdconcurrent.SyLock;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+/**
+ * <h2>long 键映射缓存.</h2>
+ * <p>
+ * 与 {@link SMapCache} 相同的自填充方式，键为 long，命中时不会对键装箱<br/>
+ * 填充在锁外进行，同一个键同时只会有一个填充任务，其余请求该键的线程等待该任务的结果，
+ * 只有未命中时才会为记录填充任务对键装箱
+ * <br/><br/>
+ * 使用示例
+ * <pre>
+ *     public static
+ *     void main(String[] args) throws Exception {
+ *         SLongMapCache&lt;Object&gt; cache = SLongMapCache.build(Object.class)
+ *                                                   // 数据生产接口
+ *                                                   .createdata(k -> new Object())
+ *                                                   // 使用弱引用
+ *                                                   .refernce(WeakReference.class).build();
+ *
+ *         System.out.println(cache.get(1L));
+ *         // 模拟回收
+ *         System.gc();
+ *         System.out.println(cache.get(1L));
+ *     }
+ * </pre>
+ *
+ * @author fybug
+ * @version 0.0.1
+ * @see SMapCache
+ * @since supplier 0.0.3
+ */
+public abstract
+class SLongMapCache<V> extends LongMapCacheOb<V> {
+    /** 正在进行的填充任务 */
+    protected final ConcurrentHashMap<Long, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+    /** 构造缓存，指定缓存方式 */
+    public
+    SLongMapCache(@NotNull Class<? extends Reference> refc) { super(refc); }
+
+    /** 构造缓存，指定缓存方式、并发管理和分段数量 */
+    public
+    SLongMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments)
+    { super(refc, syLock, segments); }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 获取缓存数据
+     * <p>
+     * 命中时不占用锁，未命中时进行填充
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存数据
+     */
+    @NotNull
+    public
+    V get(long key) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        return getdata(key);
+    }
+
+    /**
+     * 移除缓存
+     * <p>
+     * 将缓存内容主动加入回收队列，下次获取时重新填充
+     *
+     * @param key 要释放的键
+     */
+    public
+    void remove(long key) { removeData(key); }
+
+    //--------------------------------
+
+    /** 创建新的数据 */
+    @NotNull
+    protected abstract
+    V createData(long key) throws Exception;
+
+    /**
+     * 填充数据
+     * <p>
+     * 同一个键只有一个线程会运行 {@link #createData(long)}，其他线程等待该次填充的结果
+     */
+    @NotNull
+    protected final
+    V emptyData(long key) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        var run = loading.putIfAbsent(key, task);
+        if (run != null)
+            return await(run);
+        return load(key, task);
+    }
+
+    /**
+     * 运行填充任务
+     * <p>
+     * 结果或异常会传递给 {@code task}，完成后从 {@link #loading} 中移除
+     *
+     * @param key  缓存的键
+     * @param task 当前键的填充任务
+     *
+     * @return 填充的数据
+     */
+    @NotNull
+    protected
+    V load(long key, @NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            // 上一次填充可能刚刚完成
+            var v = peekdata(key);
+            if (v == null) {
+                // 生成新的数据
+                var s = statsCounter;
+                var start = s == null ? 0 : System.nanoTime();
+                try {
+                    v = createData(key);
+                } catch ( Throwable e ) {
+                    if (s != null)
+                        s.recordLoadFailure(System.nanoTime() - start);
+                    throw e;
+                }
+                if (s != null)
+                    s.recordLoadSuccess(System.nanoTime() - start);
+                putdata(key, v);
+            }
+            task.complete(v);
+            return v;
+        } catch ( Throwable e ) {
+            // 通知所有等待的线程
+            task.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, task);
+        }
+    }
+
+    // 等待填充任务，抛出填充时的异常
+    @NotNull
+    private static
+    <V> V await(@NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            return task.get();
+        } catch ( ExecutionException e ) {
+            var cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * long 键的数据生成接口
+     *
+     * @param <V> 数据类型
+     *
+     * @since SLongMapCache 0.0.1
+     */
+    @FunctionalInterface
+    public
+    interface LongCreate<V> {
+        /** 生成键对应的数据 */
+        @NotNull
+        V apply(long key) throws Exception;
+    }
+
+    /**
+     * 获取缓存构造工具
+     *
+     * @param <V> 缓存内容的类型
+     *
+     * @return 构造工具
+     */
+    @NotNull
+    public static
+    <V> Build<V> build(Class<V> vc) {return new Build<>();}
+
+    /**
+     * <h2> {@link SLongMapCache} 构造工具.</h2>
+     * <ul>
+     * <li>使用 {@link #createdata(LongCreate)} 方法绑定数据生成接口</li>
+     * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
+     * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
+     * <li>使用 {@link #build()} 进行构造</li>
+     * </ul>
+     *
+     * @version 0.0.2
+     * @since SLongMapCache 0.0.1
+     */
+    @Accessors( chain = true, fluent = true )
+    public static final
+    class Build<V> extends LongMapCacheOb.Build<V, Build<V>> {
+        /** 数据生成接口 */
+        @Setter private LongCreate<V> createdata;
+
+        @NotNull
+        public
+        SLongMapCache<V> build() {
+            var c = new SLongMapCache<V>(refernce, lockBy, segments) {
+                protected @NotNull
+                V createData(long key) throws Exception { return createdata.apply(key); }
+            };
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setRemovalListener(removalListener);
+            return c;
+        }
+    }
+}
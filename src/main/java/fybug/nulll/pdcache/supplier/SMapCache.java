@@ -1,21 +1,58 @@
 package fybug.nulll.pdcache.supplier;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
+import fybug.nulll.pdcache.CacheGcThrea;
 import fybug.nulll.pdcache.MapCacheOb;
 import fybug.nulll.pdcache.MemoryMapCache;
+import fybug.nulll.pdcache.RemovalCause;
+import fybug.nulll.pdcache.RemovalListener;
 import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdconcurrent.SyLock;
 import fybug.nulll.pdconcurrent.fun.tryBiConsumer;
 import fybug.nulll.pdconcurrent.fun.tryFunction;
+import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
 /**
  * <h2>映射缓存.</h2>
  * <p>
- * 使用键来获取缓存的缓存工具，需要指定数据填充方法，在没有数据的时候会进行自填充
+ * 使用键来获取缓存的缓存工具，需要指定数据填充方法，在没有数据的时候会进行自填充<br/>
+ * 填充在锁外进行，同一个键同时只会有一个填充任务，其余请求该键的线程等待该任务的结果，
+ * 填充失败时所有等待的线程都会收到该异常，之后的请求会重新填充<br/>
+ * 可使用 {@link #getAsync(K)} 异步获取，填充任务在 {@link #setLoadExecutor(Executor)} 指定的线程池中运行，
+ * 默认为 {@link ForkJoinPool#commonPool()}，同步与异步请求共享同一个填充任务<br/>
+ * 使用 {@link #getAll(Collection)} 批量获取时未命中的键会一次性交给 {@link #createAll(Collection)} 填充
+ * <br/><br/>
+ * 可使用 {@link #setRefreshAfter(long)} 开启提前刷新：数据填充后超过该时间，下一次命中时仍立即返回当前数据，
+ * 同时在 {@link #getLoadExecutor()} 中重新填充，完成后替换该数据。刷新与同步填充共享同一个填充任务，
+ * 刷新失败时保留当前数据，下一次命中时再次刷新
+ * <br/><br/>
+ * 可使用 {@link #preload(Iterable)}、{@link #preloadAsync(Stream)} 预加载大量的键，
+ * 在 {@link #getLoadExecutor()} 中以 {@link #setPreloadParallelism(int)} 个任务并行填充，
+ * {@link #setPreloadBatch(int)} 大于 1 时每批未命中的键一次性交给 {@link #createAll(Collection)}
+ * <br/><br/>
+ * {@link #createData(K)} 返回 null 表示该键没有数据，此时获取的结果为 null<br/>
+ * 可使用 {@link #setAbsentTime(long)}、{@link #setFailureTime(long)} 在一段时间内缓存无数据的结果与填充失败的异常，
+ * 期间对该键的请求直接返回 null 或抛出该异常，不会再次调用填充方法，放入新的数据或移除该键时清除
  * <br/><br/>
  * 使用示例
  * <pre>使用普通的缓存数据
@@ -55,11 +92,62 @@ import lombok.experimental.Accessors;
  * </pre>
  *
  * @author fybug
- * @version 0.0.1
+ * @version 0.0.11
  * @since supplier 0.0.1
  */
 public abstract
 class SMapCache<K, V> extends MemoryMapCache<K, V> {
+    /**
+     * 正在进行的填充任务
+     *
+     * @since 0.0.3
+     */
+    protected final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    /**
+     * 异步填充使用的线程池
+     *
+     * @since 0.0.4
+     */
+    @NonNull
+    @Setter
+    @Getter
+    protected volatile Executor loadExecutor = ForkJoinPool.commonPool();
+    /**
+     * 数据的填充时间（纳秒），仅在开启提前刷新时记录
+     *
+     * @since 0.0.8
+     */
+    protected final ConcurrentHashMap<K, Long> loadedAt = new ConcurrentHashMap<>();
+    /** 提前刷新的时间（纳秒），0 为不刷新 */
+    private volatile long refreshNanos = 0;
+    /**
+     * 预加载同时运行的填充任务数量
+     *
+     * @since 0.0.9
+     */
+    @Setter
+    @Getter
+    protected volatile int preloadParallelism = Runtime.getRuntime().availableProcessors();
+    /**
+     * 预加载每批的键数量，大于 1 时每批交给 {@link #createAll(Collection)}
+     *
+     * @since 0.0.9
+     */
+    @Setter
+    @Getter
+    protected volatile int preloadBatch = 1;
+    /**
+     * 缓存的无数据与失败结果
+     *
+     * @since 0.0.10
+     */
+    protected final ConcurrentHashMap<K, Negative> negatives = new ConcurrentHashMap<>();
+    /** 无数据结果的缓存时间（纳秒），0 为不缓存 */
+    private volatile long absentNanos = 0;
+    /** 失败结果的缓存时间（纳秒），0 为不缓存 */
+    private volatile long failureNanos = 0;
+    /** 下一次清理过期结果的数量 */
+    private volatile int negativeSweep = 1024;
 
     /** 构造缓存，指定缓存方式 */
     public
@@ -70,38 +158,685 @@ class SMapCache<K, V> extends MemoryMapCache<K, V> {
     SMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock)
     { super(refc, syLock); }
 
+    /**
+     * 构造缓存，指定缓存方式、并发管理和分段数量
+     *
+     * @since 0.0.2
+     */
+    public
+    SMapCache(@NotNull Class<? extends Reference> refc, @NotNull SyLock syLock, int segments)
+    { super(refc, syLock, segments); }
+
     //----------------------------------------------------------------------------------------------
 
+    /**
+     * 获取缓存数据
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存数据，该键没有数据时为 null
+     */
     @Override
-    @NotNull
+    @Nullable
     public
-    V get(@NotNull K key) throws Exception, CacheError { return super.get(key); }
+    V get(@NotNull K key) throws Exception, CacheError {
+        var v = super.get(key);
+        // 只刷新已有的数据
+        if (v != null && refreshNanos > 0)
+            refreshIfStale(key);
+        return v;
+    }
 
     @Override
-    @NotNull
+    @Nullable
     public
     V get(@NotNull K key, @NotNull tryBiConsumer<K, V, Exception> run) throws Exception, CacheError
     { return super.get(key, run); }
 
-    //--------------------------------
+    @Override
+    @NotNull
+    public
+    Map<K, V> getAll(@NotNull Collection<? extends K> keys) throws Exception, CacheError {
+        var res = super.getAll(keys);
+        if (refreshNanos > 0)
+            for ( K key : res.keySet() )
+                refreshIfStale(key);
+        return res;
+    }
 
-    /** 创建新的数据 */
+    /**
+     * 异步获取缓存数据
+     * <p>
+     * 命中时返回已完成的任务，否则在 {@link #getLoadExecutor()} 中填充<br/>
+     * 同一个键正在填充时共享该次填充的结果
+     *
+     * @param key 缓存的键
+     *
+     * @return 获取数据的任务，缓存被关闭时以 {@link CacheError} 失败
+     *
+     * @since 0.0.4
+     */
     @NotNull
+    public
+    CompletableFuture<V> getAsync(@NotNull K key) {
+        if (isClose())
+            return CompletableFuture.failedFuture(new CacheError());
+
+        var v = peekdata(key);
+        var s = statsCounter;
+        if (v != null) {
+            if (s != null)
+                s.recordHits(1);
+            if (refreshNanos > 0)
+                refreshIfStale(key);
+            return CompletableFuture.completedFuture(v);
+        }
+        if (s != null)
+            s.recordMisses(1);
+
+        /* 缓存的无数据或失败结果 */
+        var n = negative(key);
+        if (n != null)
+            return n.error == null ? CompletableFuture.completedFuture(null) : CompletableFuture.failedFuture(n.error);
+
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        var run = loading.putIfAbsent(key, task);
+        if (run != null)
+            return run.copy();
+
+        try {
+            loadExecutor.execute(() -> {
+                try {
+                    load(key, task);
+                } catch ( Throwable ignored ) {
+                    // 异常已经传递给任务
+                }
+            });
+        } catch ( Throwable e ) {
+            task.completeExceptionally(e);
+            loading.remove(key, task);
+        }
+        return task.copy();
+    }
+
+    //--------------------------------
+
+    /**
+     * 创建新的数据
+     *
+     * @return 新的数据，该键没有数据时为 null
+     */
+    @Nullable
     protected abstract
     V createData(@NotNull K key) throws Exception;
 
+    /**
+     * 批量创建新的数据
+     * <p>
+     * 默认逐个调用 {@link #createData(K)}，未返回的键不会被缓存
+     *
+     * @param keys 需要创建数据的键
+     *
+     * @return 键与新数据的映射
+     *
+     * @since 0.0.5
+     */
     @NotNull
+    protected
+    Map<K, V> createAll(@NotNull Collection<K> keys) throws Exception {
+        var res = new HashMap<K, V>();
+        for ( K key : keys ) {
+            var v = createData(key);
+            if (v != null)
+                res.put(key, v);
+        }
+        return res;
+    }
+
+    /**
+     * 填充数据
+     * <p>
+     * 同一个键只有一个线程会运行 {@link #createData(K)}，其他线程等待该次填充的结果<br/>
+     * 有缓存的无数据或失败结果时直接返回 null 或抛出该异常
+     */
+    @Nullable
     protected final
     V emptyData(@NotNull K key) throws Exception, CacheError {
         if (isClose())
             throw new CacheError();
 
-        // 生成新的数据
-        var v = createData(key);
-        putdata(key, v);
+        /* 缓存的无数据或失败结果 */
+        var n = negative(key);
+        if (n != null)
+            return n.rethrow();
+
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        var run = loading.putIfAbsent(key, task);
+        if (run != null)
+            return await(run);
+        return load(key, task);
+    }
+
+    /**
+     * 运行填充任务
+     * <p>
+     * 结果或异常会传递给 {@code task}，完成后从 {@link #loading} 中移除
+     *
+     * @param key  缓存的键
+     * @param task 当前键的填充任务
+     *
+     * @return 填充的数据，没有数据时为 null
+     *
+     * @since 0.0.4
+     */
+    @Nullable
+    protected
+    V load(@NotNull K key, @NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            // 上一次填充可能刚刚完成，或可从磁盘取回
+            var v = peekdata(key);
+            if (v == null && (v = promote(key)) == null) {
+                // 生成新的数据
+                var s = statsCounter;
+                var start = s == null ? 0 : System.nanoTime();
+                try {
+                    v = createData(key);
+                } catch ( Throwable e ) {
+                    if (s != null)
+                        s.recordLoadFailure(System.nanoTime() - start);
+                    memoize(key, failureNanos, e);
+                    throw e;
+                }
+                if (s != null)
+                    s.recordLoadSuccess(System.nanoTime() - start);
+                if (v == null) {
+                    if (s != null)
+                        s.recordAbsent(1);
+                    memoize(key, absentNanos, null);
+                } else {
+                    putdata(key, v);
+                    stamp(key);
+                    negatives.remove(key);
+                }
+            } else if (refreshNanos > 0)
+                loadedAt.putIfAbsent(key, System.nanoTime());
+            task.complete(v);
+            return v;
+        } catch ( Throwable e ) {
+            // 通知所有等待的线程
+            task.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, task);
+        }
+    }
+
+    /**
+     * 批量填充数据
+     * <p>
+     * 没有填充任务的键一次性交给 {@link #createAll(Collection)}，正在填充的键等待对应任务的结果<br/>
+     * 有缓存的无数据结果的键不包含在结果中，有缓存的失败结果时抛出该异常
+     */
+    @NotNull
+    protected final
+    Map<K, V> emptyAll(@NotNull List<K> keys) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+
+        /* 缓存的无数据或失败结果，在注册填充任务前全部检查，抛出时不会留下未完成的任务 */
+        var pending = new ArrayList<K>(keys.size());
+        for ( K key : keys ) {
+            var n = negative(key);
+            if (n != null)
+                n.rethrow();
+            else
+                pending.add(key);
+        }
+
+        var own = new HashMap<K, CompletableFuture<V>>();
+        var wait = new HashMap<K, CompletableFuture<V>>();
+        for ( K key : pending ) {
+            var task = new CompletableFuture<V>();
+            var run = loading.putIfAbsent(key, task);
+            if (run == null)
+                own.put(key, task);
+            else
+                wait.put(key, run);
+        }
+
+        var res = own.isEmpty() ? new HashMap<K, V>() : loadAll(own);
+        for ( var e : wait.entrySet() ) {
+            var v = await(e.getValue());
+            if (v != null)
+                res.put(e.getKey(), v);
+        }
+        return res;
+    }
+
+    /**
+     * 运行批量填充任务
+     * <p>
+     * 结果或异常会传递给各个键的任务，完成后从 {@link #loading} 中移除<br/>
+     * {@link #createAll(Collection)} 未返回的键结果为 null
+     *
+     * @param tasks 键与对应的填充任务
+     *
+     * @return 填充的数据
+     *
+     * @since 0.0.5
+     */
+    @NotNull
+    protected
+    Map<K, V> loadAll(@NotNull Map<K, CompletableFuture<V>> tasks) throws Exception {
+        try {
+            var res = new HashMap<K, V>();
+            var miss = new ArrayList<K>();
+            // 上一次填充可能刚刚完成
+            for ( K key : tasks.keySet() ) {
+                var v = peekdata(key);
+                if (v == null && (v = promote(key)) == null)
+                    miss.add(key);
+                else
+                    res.put(key, v);
+            }
+
+            if (!miss.isEmpty()) {
+                // 一次性生成，统计为一次生成
+                var data = new HashMap<K, V>();
+                var s = statsCounter;
+                var start = s == null ? 0 : System.nanoTime();
+                Map<K, V> created;
+                try {
+                    created = createAll(miss);
+                } catch ( Throwable e ) {
+                    if (s != null)
+                        s.recordLoadFailure(System.nanoTime() - start);
+                    for ( K key : miss )
+                        memoize(key, failureNanos, e);
+                    throw e;
+                }
+                if (s != null)
+                    s.recordLoadSuccess(System.nanoTime() - start);
+                var absent = 0;
+                for ( K key : miss ) {
+                    var v = created.get(key);
+                    if (v != null)
+                        data.put(key, v);
+                    else {
+                        absent++;
+                        memoize(key, absentNanos, null);
+                    }
+                }
+                if (s != null && absent > 0)
+                    s.recordAbsent(absent);
+                putalldata(data);
+                for ( K key : data.keySet() ) {
+                    stamp(key);
+                    negatives.remove(key);
+                }
+                res.putAll(data);
+            }
+
+            tasks.forEach((k, t) -> t.complete(res.get(k)));
+            return res;
+        } catch ( Throwable e ) {
+            // 通知所有等待的线程
+            tasks.values().forEach(t -> t.completeExceptionally(e));
+            throw e;
+        } finally {
+            tasks.forEach(loading::remove);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 预加载数据并等待完成
+     * <p>
+     * 已有数据的键跳过，填充失败的键记录在结果中，不会中断预加载
+     *
+     * @param keys 需要预加载的键
+     *
+     * @return 完成的预加载任务
+     *
+     * @see #preloadAsync(Stream)
+     * @since 0.0.9
+     */
+    @NotNull
+    public
+    Preload<K> preload(@NotNull Iterable<? extends K> keys) throws Exception, CacheError {
+        if (isClose())
+            throw new CacheError();
+        return await(startPreload(keys.iterator()).future());
+    }
+
+    /**
+     * 异步预加载数据
+     * <p>
+     * 在 {@link #getLoadExecutor()} 中运行 {@link #getPreloadParallelism()} 个工作任务，依次从键序列中取出键填充，
+     * 同时运行的填充不超过该数量<br/>
+     * 完成后关闭键序列
+     *
+     * @param keys 需要预加载的键，只会被顺序读取
+     *
+     * @return 预加载任务，可查看进度与等待完成
+     *
+     * @since 0.0.9
+     */
+    @NotNull
+    public
+    Preload<K> preloadAsync(@NotNull Stream<? extends K> keys) throws CacheError {
+        if (isClose())
+            throw new CacheError();
+        var p = startPreload(keys.iterator());
+        p.future().whenComplete((r, e) -> keys.close());
+        return p;
+    }
+
+    // 开始预加载
+    @NotNull
+    private
+    Preload<K> startPreload(@NotNull Iterator<? extends K> keys) {
+        return new Preload<K>(keys, preloadBatch, (p, list) -> {
+            if (isClose()) {
+                p.cancel();
+                throw new CacheError();
+            }
+
+            /* 逐个填充 */
+            if (list.size() == 1) {
+                var key = list.get(0);
+                if (peekdata(key) != null)
+                    p.skipped(1);
+                else if (emptyData(key) != null)
+                    p.loaded(1);
+                else
+                    p.failed(key, new NoSuchElementException("no data created for " + key));
+                return;
+            }
+
+            /* 批量填充 */
+            var miss = new ArrayList<K>(list.size());
+            for ( K key : list ) {
+                if (peekdata(key) == null)
+                    miss.add(key);
+            }
+            p.skipped(list.size() - miss.size());
+            if (miss.isEmpty())
+                return;
+
+            var res = emptyAll(miss);
+            p.loaded(res.size());
+            for ( K key : miss ) {
+                if (!res.containsKey(key))
+                    p.failed(key, new NoSuchElementException("no data created for " + key));
+            }
+        }).start(loadExecutor, preloadParallelism);
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 设置提前刷新的时间
+     * <p>
+     * 数据填充后超过该时间，下一次命中时在后台重新填充
+     *
+     * @param refreshAfter 刷新时间（毫秒），小于等于 0 为不刷新
+     *
+     * @since 0.0.8
+     */
+    public
+    void setRefreshAfter(long refreshAfter) {
+        refreshNanos = refreshAfter > 0 ? TimeUnit.MILLISECONDS.toNanos(refreshAfter) : 0;
+        if (refreshNanos == 0)
+            loadedAt.clear();
+    }
+
+    /**
+     * 获取提前刷新的时间
+     *
+     * @return 刷新时间（毫秒），0 为不刷新
+     *
+     * @since 0.0.8
+     */
+    public
+    long getRefreshAfter() { return TimeUnit.NANOSECONDS.toMillis(refreshNanos); }
+
+    /**
+     * 检查命中的数据是否需要刷新
+     * <p>
+     * 超过刷新时间且没有正在进行的填充任务时，在 {@link #getLoadExecutor()} 中运行 {@link #reload(K, CompletableFuture)}<br/>
+     * 没有填充时间记录的数据从当前开始计时
+     *
+     * @param key 命中的键
+     *
+     * @since 0.0.8
+     */
+    protected
+    void refreshIfStale(@NotNull K key) {
+        var now = System.nanoTime();
+        var at = loadedAt.get(key);
+        if (at == null) {
+            loadedAt.putIfAbsent(key, now);
+            return;
+        }
+        if (now - at < refreshNanos || isClose())
+            return;
+
+        /* 已有填充任务 */
+        var task = new CompletableFuture<V>();
+        if (loading.putIfAbsent(key, task) != null)
+            return;
+
+        try {
+            loadExecutor.execute(() -> reload(key, task));
+        } catch ( Throwable e ) {
+            task.completeExceptionally(e);
+            loading.remove(key, task);
+        }
+    }
+
+    /**
+     * 运行刷新任务
+     * <p>
+     * 不检查当前数据，直接调用 {@link #createData(K)} 并替换当前数据<br/>
+     * 失败时保留当前数据，异常只传递给等待该任务的线程<br/>
+     * 没有数据时以 {@link RemovalCause#EXPIRED} 移除当前数据，不计入移除统计
+     *
+     * @param key  缓存的键
+     * @param task 当前键的填充任务
+     *
+     * @since 0.0.8
+     */
+    protected
+    void reload(@NotNull K key, @NotNull CompletableFuture<V> task) {
+        var s = statsCounter;
+        var start = System.nanoTime();
+        try {
+            var v = createData(key);
+            if (s != null)
+                s.recordLoadSuccess(System.nanoTime() - start);
+            if (!isClose()) {
+                if (v == null) {
+                    // 刷新后没有数据，当前数据过期，不是使用者的移除
+                    invalidate(key, RemovalCause.EXPIRED);
+                    loadedAt.remove(key);
+                    memoize(key, absentNanos, null);
+                } else {
+                    putdata(key, v);
+                    stamp(key);
+                }
+            }
+            task.complete(v);
+        } catch ( Throwable e ) {
+            if (s != null)
+                s.recordLoadFailure(System.nanoTime() - start);
+            task.completeExceptionally(e);
+        } finally {
+            loading.remove(key, task);
+        }
+    }
+
+    // 记录填充时间
+    private
+    void stamp(@NotNull K key) {
+        if (refreshNanos > 0)
+            loadedAt.put(key, System.nanoTime());
+    }
+
+    @Override
+    @Nullable
+    protected
+    V removeData(@NotNull K key) {
+        var v = super.removeData(key);
+        loadedAt.remove(key);
+        negatives.remove(key);
         return v;
     }
 
+    @Override
+    public
+    void clear() {
+        super.clear();
+        loadedAt.clear();
+        negatives.clear();
+    }
+
+    /** 被回收的键不再保留填充时间 */
+    @Override
+    protected
+    void recycle(@NotNull List<CacheGcThrea.Recyclable> refs) {
+        super.recycle(refs);
+        if (loadedAt.isEmpty())
+            return;
+        for ( var r : refs ) {
+            var key = (K) r.key();
+            // 已被放入新数据的键保留
+            if (segment(key).map.get(key) == null)
+                loadedAt.remove(key);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /**
+     * 设置无数据结果的缓存时间
+     *
+     * @param absentTime 缓存时间（毫秒），小于等于 0 为不缓存
+     *
+     * @since 0.0.10
+     */
+    public
+    void setAbsentTime(long absentTime)
+    { absentNanos = absentTime > 0 ? TimeUnit.MILLISECONDS.toNanos(absentTime) : 0; }
+
+    /**
+     * 设置填充失败结果的缓存时间
+     *
+     * @param failureTime 缓存时间（毫秒），小于等于 0 为不缓存
+     *
+     * @since 0.0.10
+     */
+    public
+    void setFailureTime(long failureTime)
+    { failureNanos = failureTime > 0 ? TimeUnit.MILLISECONDS.toNanos(failureTime) : 0; }
+
+    /**
+     * 获取未过期的无数据或失败结果
+     * <p>
+     * 已过期的结果会被移除，命中时记录统计
+     *
+     * @param key 缓存的键
+     *
+     * @return 缓存的结果，没有时为 null
+     *
+     * @since 0.0.10
+     */
+    @Nullable
+    protected final
+    Negative negative(@NotNull K key) {
+        if (negatives.isEmpty())
+            return null;
+        var n = negatives.get(key);
+        if (n == null)
+            return null;
+        if (n.until - System.nanoTime() <= 0) {
+            negatives.remove(key, n);
+            return null;
+        }
+
+        var s = statsCounter;
+        if (s != null)
+            s.recordNegativeHits(1);
+        return n;
+    }
+
+    // 缓存无数据或失败结果，数量较多时清理已过期的结果
+    private
+    void memoize(@NotNull K key, long nanos, @Nullable Throwable error) {
+        if (nanos <= 0 || isClose())
+            return;
+        var now = System.nanoTime();
+        negatives.put(key, new Negative(now + nanos, error));
+
+        if (negatives.size() >= negativeSweep) {
+            negatives.values().removeIf(n -> n.until - now <= 0);
+            negativeSweep = Math.max(1024, negatives.size() << 1);
+        }
+    }
+
+    // 等待填充任务，抛出填充时的异常
+    @NotNull
+    private static
+    <V> V await(@NotNull CompletableFuture<V> task) throws Exception {
+        try {
+            return task.get();
+        } catch ( ExecutionException e ) {
+            var cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /*--------------------------------------------------------------------------------------------*/
+
+    /**
+     * <h2>缓存的无数据或失败结果.</h2>
+     *
+     * @author fybug
+     * @version 0.0.1
+     * @since SMapCache 0.0.10
+     */
+    protected static final
+    class Negative {
+        /** 过期的时间（纳秒） */
+        final long until;
+        /** 失败的异常，无数据时为 null */
+        @Nullable final Throwable error;
+
+        Negative(long until, @Nullable Throwable error) {
+            this.until = until;
+            this.error = error;
+        }
+
+        // 无数据时返回 null，失败时抛出该异常
+        @Nullable
+        <V> V rethrow() throws Exception {
+            if (error == null)
+                return null;
+            if (error instanceof Exception)
+                throw (Exception) error;
+            if (error instanceof Error)
+                throw (Error) error;
+            throw new ExecutionException(error);
+        }
+    }
+
     /*--------------------------------------------------------------------------------------------*/
 
     /**
@@ -120,27 +855,94 @@ class SMapCache<K, V> extends MemoryMapCache<K, V> {
      * <h2> {@link SMapCache} 构造工具.</h2>
      * <ul>
      * <li>使用 {@link #createdata(tryFunction)} 方法绑定数据生成接口</li>
+     * <li>使用 {@link #createall(tryFunction)} 方法绑定批量数据生成接口</li>
      * <li>使用 {@link #refernce(Class)} 绑定缓存方式</li>
      * <li>使用 {@link #lockBy(SyLock)} 绑定并发管理</li>
+     * <li>使用 {@link #segments(int)} 指定分段数量</li>
+     * <li>使用 {@link #executor(Executor)} 指定异步填充使用的线程池</li>
+     * <li>使用 {@link #refreshAfter(long)} 开启提前刷新</li>
+     * <li>使用 {@link #preloadParallelism(int)}、{@link #preloadBatch(int)} 指定预加载的并行数量与批量大小</li>
+     * <li>使用 {@link #absentTime(long)}、{@link #failureTime(long)} 缓存无数据与填充失败的结果</li>
+     * <li>使用 {@link #maximumSize(long)} 限制缓存数量</li>
+     * <li>使用 {@link #recordStats()} 开启统计</li>
+     * <li>使用 {@link #removalListener(RemovalListener)} 绑定移除监听器</li>
      * <li>使用 {@link #build()} 进行构造</li>
      * </ul>
      *
-     * @version 0.0.1
+     * @version 0.0.11
      * @since SMapCache 0.0.1
      */
     @Accessors( chain = true, fluent = true )
     public static final
     class Build<K, V> extends MapCacheOb.Build<K, V, Build<K, V>> {
         /** 数据生成接口 */
-        @Setter private tryFunction<@NotNull K, @NotNull V, Exception> createdata;
+        @Setter private tryFunction<@NotNull K, V, Exception> createdata;
+        /**
+         * 批量数据生成接口，为空则逐个生成
+         *
+         * @since SMapCache.Build 0.0.3
+         */
+        @Setter private tryFunction<@NotNull Collection<K>, @NotNull Map<K, V>, Exception> createall;
+        /**
+         * 异步填充使用的线程池
+         *
+         * @since SMapCache.Build 0.0.2
+         */
+        @Setter private Executor executor = ForkJoinPool.commonPool();
+        /**
+         * 提前刷新的时间（毫秒），0 为不刷新
+         *
+         * @since SMapCache.Build 0.0.8
+         */
+        @Setter private long refreshAfter = 0;
+        /**
+         * 预加载同时运行的填充任务数量
+         *
+         * @since SMapCache.Build 0.0.9
+         */
+        @Setter private int preloadParallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * 预加载每批的键数量，0 为绑定了批量数据生成接口时每批 256 个，否则逐个填充
+         *
+         * @since SMapCache.Build 0.0.9
+         */
+        @Setter private int preloadBatch = 0;
+        /**
+         * 无数据结果的缓存时间（毫秒），0 为不缓存
+         *
+         * @since SMapCache.Build 0.0.10
+         */
+        @Setter private long absentTime = 0;
+        /**
+         * 填充失败结果的缓存时间（毫秒），0 为不缓存
+         *
+         * @since SMapCache.Build 0.0.10
+         */
+        @Setter private long failureTime = 0;
 
         @NotNull
         public
         SMapCache<K, V> build() {
-            return new SMapCache<>(refernce, lockBy) {
-                protected @NotNull
+            var c = new SMapCache<K, V>(refernce, lockBy, segments) {
+                protected @Nullable
                 V createData(@NotNull K key) throws Exception { return createdata.apply(key); }
+
+                protected @NotNull
+                Map<K, V> createAll(@NotNull Collection<K> keys) throws Exception
+                { return createall == null ? super.createAll(keys) : createall.apply(keys); }
             };
+            c.setLoadExecutor(executor);
+            c.setRefreshAfter(refreshAfter);
+            c.setPreloadParallelism(preloadParallelism);
+            c.setPreloadBatch(preloadBatch > 0 ? preloadBatch : createall == null ? 1 : 256);
+            c.setAbsentTime(absentTime);
+            c.setFailureTime(failureTime);
+            c.setMaximumSize(maximumSize);
+            c.setReferenceStrategy(referenceStrategy);
+            c.setRecordStats(recordStats);
+            c.setDiskTier(diskTier);
+            c.setRemovalListener(removalListener);
+            return c;
         }
     }
 }
@@ -0,0 +1,49 @@
+package fybug.nulll.pdcache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import fybug.nulll.pdcache.memory.MapCache;
+
+public
+class CacheGcThreaTest {
+    private MapCache<String, Object> cache;
+
+    @Before
+    public
+    void setUp() {
+        cache = PDCache.MapCache(String.class, Object.class).refernce(WeakReference.class).build();
+    }
+
+    @After
+    public
+    void tearDown() {
+        cache.clear();
+        cache = null;
+    }
+
+    // 普通数据不注册回收方法，被回收后由排空线程移除
+    @Test
+    public
+    void plainGc() throws Exception {
+        var tracked = CacheGcThrea.stats().getTracked();
+        var pending = CacheGcThrea.stats().getPending();
+        for ( int i = 0; i < 100; i++ )
+            cache.put(String.valueOf(i), new Object());
+
+        assert CacheGcThrea.stats().getTracked() == tracked;
+        assert cache.LOCK.read(cache.cleanableMap::isEmpty);
+
+        System.gc();
+        for ( int i = 0; i < 50 && !cache.LOCK.read(cache.map::isEmpty); i++ )
+            Thread.sleep(20);
+        assert cache.LOCK.read(cache.map::isEmpty);
+        assert CacheGcThrea.stats().getDrained() >= 100;
+        // 排空后不再计入
+        for ( int i = 0; i < 50 && CacheGcThrea.stats().getPending() > pending; i++ )
+            Thread.sleep(20);
+        assert CacheGcThrea.stats().getPending() <= pending;
+    }
+}
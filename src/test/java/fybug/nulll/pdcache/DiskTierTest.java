@@ -0,0 +1,79 @@
+package fybug.nulll.pdcache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public
+class DiskTierTest {
+    private Path dir;
+    private DiskTier<Integer, byte[]> tier;
+
+    @Before
+    public
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("pdcache");
+        // 4 个 1 KB 的分段
+        tier = new DiskTier<>(dir, ValueCodec.BYTES, 4096, 1024);
+    }
+
+    @After
+    public
+    void tearDown() throws IOException {
+        tier.close();
+        Files.delete(dir);
+    }
+
+    // 覆盖的数据整理后保留
+    @Test
+    public
+    void compact() {
+        for ( int n = 0; n < 20; n++ )
+            for ( int i = 0; i < 8; i++ )
+                assert tier.put(i, new byte[]{(byte) i, (byte) n});
+
+        assert tier.size() == 8;
+        assert tier.diskSize() <= 4096;
+        for ( int i = 0; i < 8; i++ ) {
+            var b = tier.get(i);
+            assert b[0] == i && b[1] == 19;
+        }
+    }
+
+    // 超出上限时丢弃最旧的数据
+    @Test
+    public
+    void bound() {
+        for ( int i = 0; i < 100; i++ )
+            assert tier.put(i, new byte[100]);
+
+        assert tier.diskSize() <= 4096;
+        assert tier.get(0) == null;
+        assert tier.get(99) != null;
+        assert !tier.put(-1, new byte[2000]);
+
+        tier.remove(99);
+        assert tier.get(99) == null;
+    }
+
+    // 只使用自己的子目录
+    @Test
+    public
+    void ownDir() throws IOException {
+        var other = Files.createFile(dir.resolve("0.seg"));
+        var second = new DiskTier<Integer, byte[]>(dir, ValueCodec.BYTES, 4096, 1024);
+        assert !second.dir().equals(tier.dir());
+        assert second.dir().getParent().equals(dir);
+
+        assert tier.put(1, new byte[]{1});
+        assert second.put(1, new byte[]{2});
+        second.close();
+        assert Files.exists(other);
+        assert !Files.exists(second.dir());
+        assert tier.get(1)[0] == 1;
+        Files.delete(other);
+    }
+}
@@ -11,7 +11,7 @@ import fybug.nulll.pdcache.memory.memoryTest;
 import fybug.nulll.pdcache.supplier.suppilerTest;
 
 @RunWith( Suite.class )
-@Suite.SuiteClasses( {memoryTest.class, suppilerTest.class} )
+@Suite.SuiteClasses( {memoryTest.class, suppilerTest.class, CacheGcThreaTest.class, DiskTierTest.class} )
 public
 class RunTest {
     public static PrintWriter from;
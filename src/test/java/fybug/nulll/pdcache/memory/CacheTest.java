@@ -6,9 +6,14 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import fybug.nulll.pdcache.CanClean;
 import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.StrongReference;
 
 import static fybug.nulll.pdcache.RunTest.check;
 import static fybug.nulll.pdcache.RunTest.destruction;
@@ -64,4 +69,40 @@ class CacheTest {
 
         check();
     }
+
+    // 可清理的数据被普通数据替换后执行回收方法，移除后读取不会等待旧数据的释放
+    @Test
+    public
+    void replaceCanClean() throws Exception {
+        Cache<Object> c = PDCache.Cache(Object.class).refernce(StrongReference.class).build();
+        var cleaned = new CountDownLatch(1);
+        c.set(new CanClean() {
+            public @NotNull
+            Runnable getclean() { return cleaned::countDown; }
+        });
+        c.set("plain");
+        // 被替换的数据会执行回收方法
+        assert cleaned.await(5, TimeUnit.SECONDS);
+        c.clear();
+
+        var pool = Executors.newSingleThreadExecutor();
+        assert pool.submit(() -> c.get()).get(5, TimeUnit.SECONDS) == null;
+        pool.shutdown();
+    }
+
+    // 移除监听
+    @Test
+    public
+    void removalListener() throws Exception {
+        var events = new LinkedBlockingQueue<String>();
+        Cache<String> c = PDCache.Cache(String.class)
+                                 .refernce(StrongReference.class)
+                                 .removalListener((k, v, cause) -> events.add(v + cause))
+                                 .build();
+        c.set("a");
+        c.set("b");
+        c.clear();
+        assert "aREPLACED".equals(events.poll(5, TimeUnit.SECONDS));
+        assert "bCLEARED".equals(events.poll(5, TimeUnit.SECONDS));
+    }
 }
\ No newline at end of file
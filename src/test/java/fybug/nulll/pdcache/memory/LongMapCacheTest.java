@@ -0,0 +1,116 @@
+package fybug.nulll.pdcache.memory;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import fybug.nulll.pdcache.CanClean;
+import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.ReferenceStrategy;
+import fybug.nulll.pdcache.StrongReference;
+import fybug.nulll.pdcache.err.CacheError;
+
+public
+class LongMapCacheTest {
+    private LongMapCache<String> cache;
+
+    @Before
+    public
+    void setUp() { cache = PDCache.LongMapCache(String.class).segments(4).recordStats().build(); }
+
+    @After
+    public
+    void tearDown() {
+        cache.close();
+        cache = null;
+    }
+
+    // 放入、覆盖与移除
+    @Test
+    public
+    void cache() throws Exception {
+        var vals = new String[4096];
+        for ( int i = 0; i < vals.length; i++ )
+            cache.put(i * 0x100000001L - 2048, vals[i] = String.valueOf(i));
+        for ( int i = 0; i < vals.length; i++ )
+            assert vals[i] == cache.get(i * 0x100000001L - 2048);
+        assert cache.size() == vals.length;
+
+        // 移除一半后其余数据仍可读取
+        for ( int i = 0; i < vals.length; i += 2 )
+            cache.remove(i * 0x100000001L - 2048);
+        for ( int i = 0; i < vals.length; i++ )
+            assert (i % 2 == 0 ? null : vals[i]) == cache.get(i * 0x100000001L - 2048);
+        assert cache.size() == vals.length / 2;
+
+        cache.put(1, "a");
+        cache.put(1, "b");
+        assert "b".equals(cache.get(1));
+        assert cache.stats().getHitCount() > 0;
+
+        cache.clear();
+        assert cache.size() == 0;
+        assert cache.get(1) == null;
+    }
+
+    // 被回收的数据会被移除
+    @Test
+    public
+    void recycle() throws Exception {
+        LongMapCache<Object> c = PDCache.LongMapCache(Object.class).refernce(WeakReference.class).build();
+        c.put(Long.MIN_VALUE, new Object());
+        for ( int i = 0; i < 100 && c.size() > 0; i++ ) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assert c.size() == 0;
+        assert c.get(Long.MIN_VALUE) == null;
+        c.close();
+    }
+
+    // 可清理的数据被普通数据替换后执行回收方法，移除后读取不会等待旧数据的释放
+    @Test
+    public
+    void replaceCanClean() throws Exception {
+        LongMapCache<Object> c = PDCache.LongMapCache(Object.class).refernce(StrongReference.class).build();
+        var cleaned = new CountDownLatch(1);
+        c.put(1, new CanClean() {
+            public @NotNull
+            Runnable getclean() { return cleaned::countDown; }
+        });
+        c.put(1, "plain");
+        // 被替换的数据会执行回收方法
+        assert cleaned.await(5, TimeUnit.SECONDS);
+        c.remove(1);
+
+        var pool = Executors.newSingleThreadExecutor();
+        assert pool.submit(() -> c.get(1)).get(5, TimeUnit.SECONDS) == null;
+        pool.shutdown();
+        c.close();
+    }
+
+    // int 键与缓存方式
+    @Test
+    public
+    void intKey() throws Exception {
+        IntMapCache<String> c = PDCache.IntMapCache(String.class)
+                                       .referenceStrategy(ReferenceStrategy.STRONG)
+                                       .build();
+        c.put(-1, "-1");
+        c.put(Integer.MAX_VALUE, "max");
+        System.gc();
+        assert "-1".equals(c.get(-1));
+        assert "max".equals(c.get(Integer.MAX_VALUE));
+        c.close();
+        try {
+            c.get(-1);
+            assert false;
+        } catch ( CacheError ignored ) {
+        }
+    }
+}
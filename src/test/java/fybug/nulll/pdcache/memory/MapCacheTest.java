@@ -5,10 +5,29 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fybug.nulll.pdcache.CanClean;
+import fybug.nulll.pdcache.DiskTier;
 import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.ReferenceStrategy;
+import fybug.nulll.pdcache.RemovalCause;
+import fybug.nulll.pdcache.StrongReference;
+import fybug.nulll.pdcache.ValueCodec;
+import fybug.nulll.pdconcurrent.SyLock;
 
 import static fybug.nulll.pdcache.RunTest.check;
 import static fybug.nulll.pdcache.RunTest.destruction;
@@ -69,4 +88,271 @@ class MapCacheTest {
 
         check();
     }
-}
\ No newline at end of file
+
+    // 可清理的数据被普通数据替换后执行回收方法，移除后读取不会等待旧数据的释放
+    @Test
+    public
+    void replaceCanClean() throws Exception {
+        MapCache<String, Object> c = PDCache.MapCache(String.class, Object.class)
+                                            .refernce(StrongReference.class)
+                                            .build();
+        var cleaned = new CountDownLatch(1);
+        c.put("a", new CanClean() {
+            public @NotNull
+            Runnable getclean() { return cleaned::countDown; }
+        });
+        c.put("a", "plain");
+        // 被替换的数据会执行回收方法
+        assert cleaned.await(5, TimeUnit.SECONDS);
+        c.remove("a");
+
+        var pool = Executors.newSingleThreadExecutor();
+        assert pool.submit(() -> c.get("a")).get(5, TimeUnit.SECONDS) == null;
+        pool.shutdown();
+        c.close();
+    }
+
+    // 回收方法在锁外执行
+    @Test
+    public
+    void cleanOutsideLock() throws Exception {
+        var lock = SyLock.newRWLock();
+        MapCache<String, Object> c = PDCache.MapCache(String.class, Object.class)
+                                            .refernce(StrongReference.class)
+                                            .lockBy(lock)
+                                            .build();
+        var pool = Executors.newSingleThreadExecutor();
+        var free = new CompletableFuture<Boolean>();
+        c.put("a", new CanClean() {
+            public @NotNull
+            Runnable getclean() {
+                return () -> {
+                    // 其他线程可以获取缓存的锁
+                    try {
+                        free.complete(pool.submit(() -> lock.write(() -> true)).get(2, TimeUnit.SECONDS));
+                    } catch ( Exception e ) {
+                        free.complete(false);
+                    }
+                };
+            }
+        });
+        c.remove("a");
+        assert free.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+        c.close();
+    }
+
+    // 命中不占用锁，替换与回收期间数据不会丢失
+    @Test
+    public
+    void lockFreeRead() throws Exception {
+        var lock = SyLock.newRWLock();
+        MapCache<Integer, String> c = PDCache.MapCache(Integer.class, String.class)
+                                             .refernce(StrongReference.class)
+                                             .lockBy(lock)
+                                             .build();
+        for ( int i = 0; i < 64; i++ )
+            c.put(i, String.valueOf(i));
+
+        var pool = Executors.newFixedThreadPool(8);
+        /* 持有写锁时命中仍可读取 */
+        var held = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var writer = pool.submit(() -> lock.trywrite(InterruptedException.class, () -> {
+            held.countDown();
+            release.await();
+            return null;
+        }));
+        held.await();
+        assert pool.submit(() -> {
+            for ( int i = 0; i < 64; i++ )
+                if (!String.valueOf(i).equals(c.get(i)))
+                    return false;
+            return true;
+        }).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        writer.get();
+
+        /* 并发读取、替换与移除 */
+        var stop = new AtomicBoolean();
+        var lost = new AtomicInteger();
+        var tasks = new ArrayList<Future<?>>();
+        for ( int t = 0; t < 4; t++ )
+            tasks.add(pool.submit(() -> {
+                while( !stop.get() )
+                    for ( int i = 0; i < 64; i++ ) {
+                        var v = c.get(i);
+                        if (v == null || !v.startsWith(i + ":") && !v.equals(String.valueOf(i)))
+                            lost.incrementAndGet();
+                    }
+                return null;
+            }));
+        for ( int t = 0; t < 2; t++ )
+            tasks.add(pool.submit(() -> {
+                for ( int n = 0; !stop.get(); n++ )
+                    for ( int i = 0; i < 64; i++ )
+                        c.put(i, i + ":" + n);
+                return null;
+            }));
+        tasks.add(pool.submit(() -> {
+            while( !stop.get() )
+                for ( int i = 100; i < 164; i++ ) {
+                    c.put(i, String.valueOf(i));
+                    c.remove(i);
+                }
+            return null;
+        }));
+        Thread.sleep(500);
+        stop.set(true);
+        for ( var f : tasks )
+            f.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assert lost.get() == 0;
+        for ( int i = 0; i < 64; i++ )
+            assert c.get(i).startsWith(i + ":");
+        c.close();
+    }
+
+    // 分段存储
+    @Test
+    public
+    void segments() throws Exception {
+        MapCache<Integer, String> seg = PDCache.MapCache(Integer.class, String.class)
+                                               .refernce(SoftReference.class)
+                                               .segments(8)
+                                               .build();
+        var vals = new String[256];
+        for ( int i = 0; i < vals.length; i++ )
+            seg.put(i, vals[i] = String.valueOf(i));
+
+        for ( int i = 0; i < vals.length; i++ )
+            assert vals[i].equals(seg.get(i));
+        assert seg.size() == vals.length;
+
+        seg.clear();
+        assert seg.size() == 0;
+        assert seg.get(0) == null;
+    }
+
+    // 批量放入与获取
+    @Test
+    public
+    void bulk() throws Exception {
+        MapCache<String, String> c = PDCache.MapCache(String.class, String.class).segments(4).build();
+        var data = Map.of("a", "1", "b", "2", "c", "3");
+        c.putAll(data);
+
+        var res = c.getAll(List.of("a", "b", "c", "d"));
+        assert res.equals(data);
+        c.close();
+    }
+
+    // 数量限制
+    @Test
+    public
+    void maximumSize() throws Exception {
+        MapCache<Integer, String> c = PDCache.MapCache(Integer.class, String.class)
+                                             .segments(4)
+                                             .maximumSize(100)
+                                             .build();
+        for ( int i = 0; i < 100; i++ )
+            c.put(i, String.valueOf(i));
+        // 热点数据
+        for ( int n = 0; n < 20; n++ )
+            for ( int i = 0; i < 10; i++ )
+                c.get(i);
+
+        // 一次性扫描
+        for ( int i = 100; i < 2000; i++ ) {
+            c.put(i, String.valueOf(i));
+            assert c.size() <= 100;
+        }
+
+        for ( int i = 0; i < 10; i++ )
+            assert String.valueOf(i).equals(c.get(i));
+        c.close();
+    }
+
+    // 缓存方式
+    @Test
+    public
+    void referenceStrategy() throws Exception {
+        MapCache<Integer, String> c = PDCache.MapCache(Integer.class, String.class)
+                                             .referenceStrategy(ReferenceStrategy.STRONG)
+                                             .build();
+        c.put(1, "1");
+        System.gc();
+        assert "1".equals(c.get(1));
+        c.close();
+
+        c = PDCache.MapCache(Integer.class, String.class)
+                   .referenceStrategy(ReferenceStrategy.custom(SoftReference::new))
+                   .build();
+        c.put(1, "1");
+        assert "1".equals(c.get(1));
+        c.remove(1);
+        assert c.get(1) == null;
+        c.close();
+    }
+
+    // 磁盘二级缓存
+    @Test
+    public
+    void diskTier() throws Exception {
+        var dir = Files.createTempDirectory("pdcache");
+        MapCache<Integer, String> c = PDCache.MapCache(Integer.class, String.class)
+                                             .maximumSize(10)
+                                             .diskTier(new DiskTier<>(dir, ValueCodec.STRING, 1 << 20, 4096))
+                                             .build();
+        for ( int i = 0; i < 100; i++ )
+            c.put(i, String.valueOf(i));
+        assert c.size() <= 10;
+
+        // 被淘汰的数据从磁盘取回
+        for ( int i = 0; i < 100; i++ )
+            assert String.valueOf(i).equals(c.get(i));
+
+        c.remove(0);
+        assert c.get(0) == null;
+        c.close();
+        try ( var files = Files.list(dir) ) {
+            assert files.findAny().isEmpty();
+        }
+        Files.delete(dir);
+    }
+
+    // 移除监听
+    @Test
+    public
+    void removalListener() throws Exception {
+        var causes = new ConcurrentHashMap<RemovalCause, AtomicInteger>();
+        var threads = ConcurrentHashMap.<String>newKeySet();
+        MapCache<Integer, String> c = PDCache.MapCache(Integer.class, String.class)
+                                             .maximumSize(10)
+                                             .removalListener((k, v, cause) -> {
+                                                 threads.add(Thread.currentThread().getName());
+                                                 causes.computeIfAbsent(cause, x -> new AtomicInteger()).incrementAndGet();
+                                             })
+                                             .build();
+        c.put(-1, "a");
+        c.put(-1, "b");
+        c.remove(-1);
+        for ( int i = 0; i < 100; i++ )
+            c.put(i, String.valueOf(i));
+        c.clear();
+
+        // 异步投递
+        for ( int i = 0; i < 100 && count(causes) < 102; i++ )
+            Thread.sleep(20);
+        assert causes.get(RemovalCause.REPLACED).get() == 1;
+        assert causes.get(RemovalCause.EXPLICIT).get() == 1;
+        assert causes.get(RemovalCause.SIZE).get() + causes.get(RemovalCause.CLEARED).get() == 100;
+        assert threads.stream().allMatch(n -> n.startsWith("PDCache-removal-"));
+        c.close();
+    }
+
+    private static
+    int count(Map<RemovalCause, AtomicInteger> causes)
+    { return causes.values().stream().mapToInt(AtomicInteger::get).sum(); }
+}
@@ -0,0 +1,77 @@
+package fybug.nulll.pdcache.memory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.ValueCodec;
+
+public
+class OffHeapMapCacheTest {
+    OffHeapMapCache<Integer, String> cache;
+
+    @Before
+    public
+    void setUp() {
+        cache = PDCache.OffHeapMapCache(Integer.class, String.class)
+                       .codec(ValueCodec.STRING)
+                       .slabSize(1024)
+                       .capacity(4096)
+                       .recordStats()
+                       .build();
+    }
+
+    @After
+    public
+    void tearDown() { cache.close(); }
+
+    // 读写测试
+    @Test
+    public
+    void getTest() throws Exception {
+        cache.put(1, "a").put(2, "测试");
+        assert "a".equals(cache.get(1));
+        assert "测试".equals(cache.get(2));
+        // 只读视图
+        assert cache.view(2, b -> b.isReadOnly() && b.remaining() == 6);
+        assert cache.view(3, b -> true) == null;
+
+        cache.put(1, "b");
+        assert "b".equals(cache.get(1));
+        cache.remove(1);
+        assert cache.get(1) == null;
+        assert cache.size() == 1;
+
+        cache.clear();
+        assert cache.get(2) == null;
+    }
+
+    // 容量淘汰测试
+    @Test
+    public
+    void evictTest() throws Exception {
+        var v = "x".repeat(100);
+        for ( int i = 0; i < 200; i++ ) {
+            cache.put(i, v + i);
+            // 热点数据
+            cache.get(0);
+            assert cache.reservedMemory() <= cache.capacity();
+        }
+
+        // 4 个块，每块 8 个 128 字节的分片
+        assert cache.size() == 32;
+        assert (v + 0).equals(cache.get(0));
+        assert (v + 199).equals(cache.get(199));
+        assert cache.stats().getEvictionCount() == 168;
+
+        // 其他大小的数据回收整块后放入
+        cache.put(-1, "y".repeat(1000));
+        assert "y".repeat(1000).equals(cache.get(-1));
+
+        try {
+            cache.put(-2, "z".repeat(2000));
+            assert false;
+        } catch ( IllegalArgumentException ignored ) {
+        }
+    }
+}
@@ -3,7 +3,19 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.ValueCodec;
+import fybug.nulll.pdconcurrent.SyLock;
 
 public
 class TimeMapCacheTest {
@@ -57,13 +69,202 @@ class TimeMapCacheTest {
 
         cache.getData("a");
         cache.getData("f");
-        Thread.sleep(1500);
+        Thread.sleep(1700);
 
+        // 到期的数据全部被移除，与读取顺序无关
         cache.LOCK.read(() -> {
             assert null != cache.map.get("a");
             assert null == cache.map.get("b");
             assert null == cache.map.get("c");
-            assert null != cache.map.get("f");
+            assert null == cache.map.get("f");
+        });
+    }
+
+    // 不同存活时间混合
+    @Test
+    public
+    void mixedTest() throws InterruptedException {
+        cache.putData("long", "0", 60000);
+        for ( int i = 0; i < 100; i++ )
+            cache.putData(String.valueOf(i), String.valueOf(i), 100);
+
+        Thread.sleep(200);
+        cache.trimData();
+
+        cache.LOCK.read(() -> {
+            assert cache.map.size() == 1;
+            assert null != cache.map.get("long");
         });
     }
-}
\ No newline at end of file
+
+    // 分片测试
+    @Test
+    public
+    void shardTest() throws Exception {
+        TimeMapCache<Integer, String> c = PDCache.TimeMapCache(Integer.class, String.class)
+                                                 .lockBy(SyLock.newRWLock())
+                                                 .shards(4)
+                                                 .scarrentime(0)
+                                                 .build();
+        for ( int i = 0; i < 256; i++ )
+            c.putData(i, String.valueOf(i), i % 2 == 0 ? 100 : 60000);
+
+        // 并行读取
+        var pool = Executors.newFixedThreadPool(4);
+        var tasks = new ArrayList<Future<?>>();
+        for ( int t = 0; t < 4; t++ )
+            tasks.add(pool.submit(() -> {
+                for ( int i = 0; i < 256; i++ )
+                    assert String.valueOf(i).equals(c.getData(i));
+            }));
+        for ( var f : tasks )
+            f.get();
+        pool.shutdown();
+
+        Thread.sleep(200);
+        c.trimData();
+        for ( int i = 0; i < 256; i++ )
+            assert (i % 2 == 0) == !c.checkData(i);
+
+        c.clear();
+        for ( var shard : c.shards )
+            assert shard.map.isEmpty();
+        c.closeTimeTaskAndClear();
+    }
+
+    // 存活时间策略
+    @Test
+    public
+    void expiryTest() throws InterruptedException {
+        TimeMapCache<String, String> c = PDCache.TimeMapCache(String.class, String.class)
+                                                .expireAfterAccess(300)
+                                                .scarrentime(50)
+                                                .build();
+        c.putData("hot", "1");
+        c.putData("cold", "2");
+        // 持续读取的数据不会过期
+        for ( int i = 0; i < 6; i++ ) {
+            Thread.sleep(100);
+            assert "1".equals(c.getData("hot"));
+        }
+        c.LOCK.read(() -> {
+            assert null != c.map.get("hot");
+            assert null == c.map.get("cold");
+        });
+        c.closeTimeTaskAndClear();
+
+        // 读取不影响写入后过期
+        TimeMapCache<String, String> w = PDCache.TimeMapCache(String.class, String.class)
+                                                .expireAfterWrite(300)
+                                                .scarrentime(0)
+                                                .build();
+        w.putData("a", "1");
+        for ( int i = 0; i < 2; i++ ) {
+            Thread.sleep(100);
+            assert "1".equals(w.getData("a"));
+        }
+        Thread.sleep(150);
+        assert null == w.getData("a");
+        w.closeTimeTaskAndClear();
+
+        // 按事件计算，读取时缩短
+        TimeMapCache<String, String> x = PDCache.TimeMapCache(String.class, String.class)
+                                                .expiry((k, v, event, remaining) -> event == Expiry.Event.READ ? 50 : 60000)
+                                                .scarrentime(0)
+                                                .build();
+        x.putData("a", "1");
+        assert x.dataHasTime("a") > 1000;
+        assert "1".equals(x.getData("a"));
+        assert x.dataHasTime("a") <= 50;
+        Thread.sleep(100);
+        x.trimData();
+        assert !x.checkData("a");
+        x.closeTimeTaskAndClear();
+    }
+
+    // 快照与恢复
+    @Test
+    public
+    void snapshotTest() throws Exception {
+        var file = Files.createTempFile("pdcache", ".snap");
+        cache.setSnapshotCodec(ValueCodec.STRING, ValueCodec.STRING);
+        for ( int i = 0; i < 1000; i++ )
+            cache.putData(String.valueOf(i), "v" + i, 60000);
+        cache.putData("short", "s", 100);
+        cache.putData("null", null, 60000);
+        // 大于缓冲区的数据
+        var big = "x".repeat(200 << 10);
+        cache.putData("big", big, 60000);
+        assert cache.snapshotTo(file) == 1003;
+
+        Thread.sleep(150);
+        TimeMapCache<String, String> c = PDCache.TimeMapCache(String.class, String.class)
+                                                .scarrentime(0)
+                                                .snapshot(file, ValueCodec.STRING, ValueCodec.STRING)
+                                                .build();
+        for ( int i = 0; i < 1000; i++ )
+            assert ("v" + i).equals(c.getData(String.valueOf(i)));
+        assert big.equals(c.getData("big"));
+        assert c.checkData("null") && c.getData("null") == null;
+        assert !c.checkData("short");
+        assert c.dataHasTime("0") > 50000;
+        c.closeTimeTaskAndClear();
+        Files.delete(file);
+    }
+
+    // 移除监听
+    @Test
+    public
+    void removalListener() throws Exception {
+        var events = new LinkedBlockingQueue<String>();
+        TimeMapCache<String, String> c = PDCache.TimeMapCache(String.class, String.class)
+                                                .scarrentime(0)
+                                                .removalListener((k, v, cause) -> events.add(k + v + cause))
+                                                .build();
+        c.putData("a", "1", 50);
+        c.putData("b", "1");
+        c.putData("b", "2");
+        c.removeData("b");
+        c.putData("c", "1");
+        Thread.sleep(100);
+        c.trimData();
+        c.clear();
+
+        var all = new HashSet<String>();
+        for ( int i = 0; i < 4; i++ )
+            all.add(events.poll(5, TimeUnit.SECONDS));
+        assert all.equals(Set.of("a1EXPIRED", "b1REPLACED", "b2EXPLICIT", "c1CLEARED"));
+        c.closeTimeTaskAndClear();
+    }
+
+    // 时间来源
+    @Test
+    public
+    void tickerTest() throws InterruptedException {
+        var time = new AtomicLong();
+        TimeMapCache<String, String> c = PDCache.TimeMapCache(String.class, String.class)
+                                                .ticker(time::get)
+                                                .scarrentime(0)
+                                                .build();
+        c.putData("a", "1", 100);
+        c.putData("b", "2", 1000);
+        time.addAndGet(50);
+        assert c.dataHasTime("a") == 50;
+        assert "1".equals(c.getData("a"));
+
+        // 手动推进时间
+        time.addAndGet(60);
+        assert !c.checkData("a");
+        c.trimData();
+        assert c.stats().getSize() == 1;
+        assert "2".equals(c.getData("b"));
+        c.closeTimeTaskAndClear();
+
+        // 粗粒度时间由后台线程推进
+        var coarse = Ticker.coarse();
+        assert coarse == Ticker.coarse(10);
+        var start = coarse.read();
+        Thread.sleep(50);
+        assert coarse.read() > start;
+    }
+}
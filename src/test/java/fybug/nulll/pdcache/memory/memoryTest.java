@@ -3,6 +3,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith( Suite.class )
-@Suite.SuiteClasses( {CacheTest.class, MapCacheTest.class, TimeMapCacheTest.class} )
+@Suite.SuiteClasses( {CacheTest.class, MapCacheTest.class, TimeMapCacheTest.class,
+                        OffHeapMapCacheTest.class, LongMapCacheTest.class} )
 public
 class memoryTest {}
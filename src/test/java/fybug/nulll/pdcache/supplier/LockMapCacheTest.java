@@ -0,0 +1,159 @@
+package fybug.nulll.pdcache.supplier;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import fybug.nulll.pdcache.StrongReference;
+import fybug.nulll.pdconcurrent.SyLock;
+
+public
+class LockMapCacheTest {
+    // 分条模式
+    @Test
+    public
+    void stripes() throws Exception {
+        LockMapCache<Integer> c = LockMapCache.build(Integer.class).stripes(10).build();
+        assert c.getStripes() == 16;
+        // 同一个键始终是同一个锁，不放入缓存
+        for ( int i = 0; i < 100; i++ )
+            assert c.get(i) == c.get(i);
+        assert c.get(1) == c.get(17);
+        assert c.size() == 0;
+        c.close();
+    }
+
+    // 混合模式下热点键使用独立的锁，且同一个键始终互斥
+    @Test
+    public
+    void hotKey() throws Exception {
+        LockMapCache<Integer> c = LockMapCache.build(Integer.class)
+                                              .refernce(StrongReference.class)
+                                              .sylock(SyLock::newRWLock)
+                                              .stripes(1)
+                                              .hotThreshold(8)
+                                              .build();
+        var inside = new AtomicInteger();
+        var broken = new AtomicInteger();
+        var count = new int[1];
+        var pool = Executors.newFixedThreadPool(8);
+        var start = new CountDownLatch(1);
+        var tasks = new ArrayList<Future<?>>();
+        for ( int t = 0; t < 8; t++ )
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for ( int i = 0; i < 500; i++ )
+                    c.get(0).write(() -> {
+                        if (inside.incrementAndGet() != 1)
+                            broken.incrementAndGet();
+                        count[0]++;
+                        // 保持持有，让其他线程排队
+                        LockSupport.parkNanos(20_000);
+                        inside.decrementAndGet();
+                    });
+                return null;
+            }));
+        start.countDown();
+        for ( var f : tasks )
+            f.get();
+        pool.shutdown();
+
+        assert broken.get() == 0;
+        assert count[0] == 4000;
+        assert c.isHot(0);
+        assert !c.isHot(1);
+        assert c.get(1).read(() -> 1) == 1;
+        c.close();
+    }
+
+    // 弱引用的独立锁在持有期间不会被回收，同一个键始终互斥
+    @Test
+    public
+    void hotKeyWeak() throws Exception {
+        LockMapCache<Integer> c = LockMapCache.build(Integer.class)
+                                              .refernce(WeakReference.class)
+                                              .sylock(SyLock::newRWLock)
+                                              .stripes(1)
+                                              .hotThreshold(2)
+                                              .build();
+        var inside = new AtomicInteger();
+        var broken = new AtomicInteger();
+        var count = new int[1];
+        var pool = Executors.newFixedThreadPool(8);
+        var start = new CountDownLatch(1);
+        var tasks = new ArrayList<Future<?>>();
+        for ( int t = 0; t < 8; t++ )
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for ( int i = 0; i < 500; i++ )
+                    c.get(0).write(() -> {
+                        if (inside.incrementAndGet() != 1)
+                            broken.incrementAndGet();
+                        count[0]++;
+                        LockSupport.parkNanos(20_000);
+                        inside.decrementAndGet();
+                    });
+                return null;
+            }));
+        // 持续触发回收
+        var gc = new Thread(() -> {
+            while( !Thread.currentThread().isInterrupted() ){
+                System.gc();
+                LockSupport.parkNanos(2_000_000);
+            }
+        });
+        gc.start();
+        start.countDown();
+        for ( var f : tasks )
+            f.get();
+        gc.interrupt();
+        gc.join();
+        pool.shutdown();
+
+        assert broken.get() == 0;
+        assert count[0] == 4000;
+        c.close();
+    }
+
+    // 按持有数量管理
+    @Test
+    public
+    void acquire() throws Exception {
+        LockMapCache<Integer> c = LockMapCache.build(Integer.class).build();
+        var a = c.acquire(1);
+        var b = c.acquire(1);
+        assert a.getLock() == b.getLock();
+        assert c.acquiredSize() == 1;
+        a.close();
+        a.close();
+        assert c.acquiredSize() == 1;
+        b.close();
+        assert c.acquiredSize() == 0;
+
+        // 并发持有同一个键始终互斥，结束后不留下锁
+        var count = new int[4];
+        var pool = Executors.newFixedThreadPool(8);
+        var tasks = new ArrayList<Future<?>>();
+        for ( int t = 0; t < 8; t++ )
+            tasks.add(pool.submit(() -> {
+                for ( int i = 0; i < 2000; i++ ) {
+                    var k = i % 4;
+                    try (var l = c.acquire(k)) {
+                        l.write(() -> count[k]++);
+                    }
+                }
+            }));
+        for ( var f : tasks )
+            f.get();
+        pool.shutdown();
+        for ( var n : count )
+            assert n == 4000;
+        assert c.acquiredSize() == 0;
+        c.close();
+    }
+}
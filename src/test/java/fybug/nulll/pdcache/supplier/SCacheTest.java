@@ -5,8 +5,14 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.StrongReference;
+import fybug.nulll.pdcache.err.CacheError;
 import fybug.nulll.pdcache.supplier.SCache;
 import fybug.nulll.pdcache.supplier.suppilerTest;
 
@@ -53,4 +59,69 @@ class SCacheTest {
 
         check();
     }
-}
\ No newline at end of file
+
+    // 异步获取共享同一个填充任务
+    @Test
+    public
+    void async() throws Exception {
+        var count = new AtomicInteger();
+        var slow = new CountDownLatch(1);
+        SCache<Object> c = PDCache.SCache(Object.class).createdata(() -> {
+            count.incrementAndGet();
+            slow.await();
+            return new Object();
+        }).build();
+
+        var a = c.getAsync();
+        var b = c.getAsync();
+        assert !a.isDone();
+
+        slow.countDown();
+        assert a.get() == b.get();
+        assert a.get() == c.get();
+        assert count.get() == 1;
+        c.clear();
+    }
+
+    // 预加载
+    @Test
+    public
+    void preload() throws Exception {
+        var count = new AtomicInteger();
+        SCache<Object> c = PDCache.SCache(Object.class).createdata(() -> {
+            count.incrementAndGet();
+            return new Object();
+        }).refernce(StrongReference.class).recordStats().build();
+
+        var v = c.preload().get();
+        assert c.preload().get() == v;
+        assert c.get() == v;
+        assert count.get() == 1;
+        // 预加载不计入命中统计
+        assert c.stats().getHitCount() == 1;
+        assert c.stats().getMissCount() == 0;
+        c.clear();
+    }
+
+    // 关闭后不再填充
+    @Test
+    public
+    void closed() throws Exception {
+        var count = new AtomicInteger();
+        SCache<Object> c = PDCache.SCache(Object.class).createdata(() -> {
+            count.incrementAndGet();
+            return new Object();
+        }).build();
+        c.close();
+
+        for ( var task : List.of(c.getAsync(), c.preload()) ) {
+            try {
+                task.get();
+                assert false;
+            } catch ( ExecutionException e ) {
+                assert e.getCause() instanceof CacheError;
+            }
+        }
+        assert count.get() == 0;
+    }
+}
@@ -0,0 +1,83 @@
+package fybug.nulll.pdcache.supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fybug.nulll.pdcache.PDCache;
+
+public
+class SLongMapCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+    private SLongMapCache<String> cache;
+
+    @Before
+    public
+    void setUp() {
+        loads.set(0);
+        cache = PDCache.SLongMapCache(String.class)
+                       .createdata(k -> {
+                           loads.incrementAndGet();
+                           if (k < 0)
+                               throw new IllegalStateException(String.valueOf(k));
+                           Thread.sleep(20);
+                           return String.valueOf(k);
+                       })
+                       .segments(4)
+                       .build();
+    }
+
+    @After
+    public
+    void tearDown() {
+        cache.close();
+        cache = null;
+    }
+
+    // 同一个键同时只填充一次
+    @Test
+    public
+    void load() throws Exception {
+        var pool = Executors.newFixedThreadPool(8);
+        var start = new CountDownLatch(1);
+        var res = new ArrayList<Future<String>>();
+        for ( int i = 0; i < 8; i++ )
+            res.add(pool.submit(() -> {
+                start.await();
+                return cache.get(42);
+            }));
+        start.countDown();
+        for ( var f : res )
+            assert "42".equals(f.get());
+        pool.shutdown();
+
+        assert loads.get() == 1;
+        assert "42".equals(cache.get(42));
+        assert loads.get() == 1;
+
+        cache.remove(42);
+        assert "42".equals(cache.get(42));
+        assert loads.get() == 2;
+    }
+
+    // 填充失败不缓存
+    @Test
+    public
+    void failure() throws Exception {
+        for ( int i = 0; i < 2; i++ ) {
+            try {
+                cache.get(-1);
+                assert false;
+            } catch ( IllegalStateException e ) {
+                assert "-1".equals(e.getMessage());
+            }
+        }
+        assert loads.get() == 2;
+        assert cache.size() == 0;
+    }
+}
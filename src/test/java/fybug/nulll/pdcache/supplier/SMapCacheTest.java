@@ -5,8 +5,22 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import fybug.nulll.pdcache.PDCache;
+import fybug.nulll.pdcache.RemovalCause;
+import fybug.nulll.pdcache.StrongReference;
 import fybug.nulll.pdcache.supplier.SMapCache;
 
 import static fybug.nulll.pdcache.RunTest.check;
@@ -54,4 +68,372 @@ class SMapCacheTest {
 
         check();
     }
-}
\ No newline at end of file
+
+    // 同一个键只填充一次，其他键不受阻塞
+    @Test
+    public
+    void singleFlight() throws Exception {
+        var count = new AtomicInteger();
+        var slow = new CountDownLatch(1);
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class).createdata(k -> {
+            count.incrementAndGet();
+            if (k.equals("slow"))
+                slow.await();
+            return k + count.get();
+        }).build();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        try {
+            var res = new Future[8];
+            for ( int i = 0; i < res.length; i++ )
+                res[i] = pool.submit(() -> c.get("slow"));
+            Thread.sleep(100);
+
+            // 其他键不受影响
+            assert "fast2".equals(c.get("fast"));
+
+            slow.countDown();
+            var v = res[0].get();
+            for ( var r : res )
+                assert v == r.get();
+            assert count.get() == 2;
+        } finally {
+            pool.shutdown();
+            c.close();
+        }
+    }
+
+    // 填充异常传递给所有等待者，且不会保留
+    @Test
+    public
+    void loadError() throws Exception {
+        var fail = new AtomicInteger(1);
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class).createdata(k -> {
+            if (fail.getAndDecrement() > 0)
+                throw new IllegalStateException(k);
+            return k;
+        }).build();
+
+        try {
+            c.get("a");
+            assert false;
+        } catch ( IllegalStateException e ) {
+            assert "a".equals(e.getMessage());
+        }
+        assert "a".equals(c.get("a"));
+        c.close();
+    }
+
+    // 异步获取共享同一个填充任务
+    @Test
+    public
+    void async() throws Exception {
+        var count = new AtomicInteger();
+        var slow = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class).createdata(k -> {
+            count.incrementAndGet();
+            slow.await();
+            return k;
+        }).executor(pool).build();
+
+        try {
+            var a = c.getAsync("a");
+            var b = c.getAsync("a");
+            assert !a.isDone();
+
+            slow.countDown();
+            assert "a".equals(a.get());
+            assert a.get() == b.get();
+            assert a.get() == c.get("a");
+            assert c.getAsync("a").isDone();
+            assert count.get() == 1;
+        } finally {
+            pool.shutdown();
+            c.close();
+        }
+    }
+
+    // 未命中的键一次性批量填充
+    @Test
+    public
+    void bulk() throws Exception {
+        var count = new AtomicInteger();
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> k)
+                                             .createall(ks -> {
+                                                 count.incrementAndGet();
+                                                 var m = new HashMap<String, String>();
+                                                 ks.forEach(k -> m.put(k, k + "!"));
+                                                 return m;
+                                             })
+                                             .build();
+
+        var a = c.get("a");
+        var res = c.getAll(List.of("a", "b", "c"));
+        assert res.get("a") == a;
+        assert "b!".equals(res.get("b"));
+        assert "c!".equals(res.get("c"));
+        assert count.get() == 1;
+        assert res.get("b") == c.get("b");
+        c.close();
+    }
+
+    // 统计
+    @Test
+    public
+    void stats() throws Exception {
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> {
+                                                 if (k.isEmpty())
+                                                     throw new IllegalArgumentException();
+                                                 return k;
+                                             })
+                                             .recordStats()
+                                             .build();
+        c.get("a");
+        c.get("a");
+        c.get("a");
+        c.remove("a");
+        c.get("a");
+        try {
+            c.get("");
+        } catch ( IllegalArgumentException ignored ) {
+        }
+
+        var stats = c.stats();
+        assert stats.getHitCount() == 2;
+        assert stats.getMissCount() == 3;
+        assert stats.getLoadSuccessCount() == 2;
+        assert stats.getLoadFailureCount() == 1;
+        assert stats.getRemovalCount() == 1;
+        assert stats.getSize() == 1;
+        assert stats.getTotalLoadTime() > 0;
+        c.close();
+    }
+
+    // 提前刷新
+    @Test
+    public
+    void refreshAfter() throws Exception {
+        var count = new AtomicInteger();
+        var gate = new CountDownLatch(1);
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> {
+                                                 var n = count.incrementAndGet();
+                                                 // 刷新时阻塞，确认命中不等待刷新
+                                                 if (n > 1)
+                                                     gate.await();
+                                                 return k + n;
+                                             })
+                                             .refernce(StrongReference.class)
+                                             .refreshAfter(50)
+                                             .build();
+        assert "a1".equals(c.get("a"));
+        assert "a1".equals(c.get("a"));
+        Thread.sleep(80);
+
+        // 过期后命中仍返回当前数据，只触发一次刷新
+        assert "a1".equals(c.get("a"));
+        assert "a1".equals(c.get("a"));
+        gate.countDown();
+        for ( int i = 0; i < 100 && !"a2".equals(c.get("a")); i++ )
+            Thread.sleep(10);
+        assert "a2".equals(c.get("a"));
+        assert count.get() == 2;
+        c.close();
+
+        // 没有数据的键不记录填充时间，也不会刷新
+        var calls = new AtomicInteger();
+        SMapCache<String, String> m = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> {
+                                                 calls.incrementAndGet();
+                                                 return null;
+                                             })
+                                             .refreshAfter(50)
+                                             .build();
+        for ( int i = 0; i < 100; i++ )
+            assert m.get(String.valueOf(i)) == null;
+        assert m.loadedAt.isEmpty();
+        Thread.sleep(80);
+        assert m.get("0") == null;
+        Thread.sleep(50);
+        assert calls.get() == 101;
+        assert m.loadedAt.isEmpty();
+        m.close();
+    }
+
+    // 刷新后没有数据，作为过期移除
+    @Test
+    public
+    void refreshAbsent() throws Exception {
+        var gone = new AtomicBoolean();
+        var events = new LinkedBlockingQueue<RemovalCause>();
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> gone.get() ? null : k)
+                                             .refernce(StrongReference.class)
+                                             .refreshAfter(50)
+                                             .recordStats()
+                                             .removalListener((k, v, cause) -> events.add(cause))
+                                             .build();
+        assert "a".equals(c.get("a"));
+        Thread.sleep(80);
+        gone.set(true);
+        assert "a".equals(c.get("a"));
+
+        assert events.poll(5, TimeUnit.SECONDS) == RemovalCause.EXPIRED;
+        assert c.size() == 0;
+        assert c.stats().getRemovalCount() == 0;
+        assert c.get("a") == null;
+        c.close();
+    }
+
+    // 预加载
+    @Test
+    public
+    void preload() throws Exception {
+        var running = new AtomicInteger();
+        var peak = new AtomicInteger();
+        SMapCache<Integer, String> c = PDCache.SMapCache(Integer.class, String.class)
+                                              .createdata(k -> {
+                                                  peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                                  try {
+                                                      if (k % 100 == 7)
+                                                          throw new IllegalStateException();
+                                                      return String.valueOf(k);
+                                                  } finally {
+                                                      running.decrementAndGet();
+                                                  }
+                                              })
+                                              .refernce(StrongReference.class)
+                                              .preloadParallelism(3)
+                                              .build();
+        c.get(0);
+        var keys = new ArrayList<Integer>();
+        for ( int i = 0; i < 1000; i++ )
+            keys.add(i);
+
+        var p = c.preload(keys);
+        assert p.isDone();
+        assert p.getSkipped() == 1;
+        assert p.getFailed() == 10;
+        assert p.getLoaded() == 989;
+        assert p.getFailures().containsKey(107);
+        assert peak.get() <= 3;
+        assert "999".equals(c.get(999));
+        c.close();
+
+        // 批量填充
+        var calls = new AtomicInteger();
+        SMapCache<Integer, String> b = PDCache.SMapCache(Integer.class, String.class)
+                                              .createall(ks -> {
+                                                  calls.incrementAndGet();
+                                                  var m = new HashMap<Integer, String>();
+                                                  ks.forEach(k -> m.put(k, String.valueOf(k)));
+                                                  return m;
+                                              })
+                                              .refernce(StrongReference.class)
+                                              .preloadBatch(100)
+                                              .build();
+        var async = b.preloadAsync(IntStream.range(0, 1000).boxed());
+        async.future().get();
+        assert async.getLoaded() == 1000;
+        assert calls.get() == 10;
+        assert b.size() == 1000;
+        b.close();
+    }
+
+    // 缓存无数据与失败结果
+    @Test
+    public
+    void negative() throws Exception {
+        var calls = new AtomicInteger();
+        SMapCache<Integer, String> c = PDCache.SMapCache(Integer.class, String.class)
+                                              .createdata(k -> {
+                                                  calls.incrementAndGet();
+                                                  Thread.sleep(50);
+                                                  if (k < 0)
+                                                      throw new IllegalStateException("down");
+                                                  return k % 2 == 0 ? String.valueOf(k) : null;
+                                              })
+                                              .refernce(StrongReference.class)
+                                              .absentTime(300)
+                                              .failureTime(300)
+                                              .recordStats()
+                                              .build();
+        // 并发请求不存在的键只填充一次
+        var pool = Executors.newFixedThreadPool(8);
+        var tasks = new ArrayList<Future<String>>();
+        for ( int i = 0; i < 32; i++ )
+            tasks.add(pool.submit(() -> c.get(1)));
+        for ( var f : tasks )
+            assert f.get() == null;
+        assert c.get(1) == null;
+        assert c.getAsync(1).get() == null;
+        assert calls.get() == 1;
+
+        // 失败结果
+        for ( int i = 0; i < 3; i++ ) {
+            try {
+                c.get(-1);
+                assert false;
+            } catch ( IllegalStateException e ) {
+                assert "down".equals(e.getMessage());
+            }
+        }
+        assert calls.get() == 2;
+        pool.shutdown();
+
+        // 批量获取时不包含无数据的键
+        var all = c.getAll(List.of(1, 2, 3));
+        assert all.size() == 1 && "2".equals(all.get(2));
+        assert calls.get() == 4;
+
+        var stats = c.stats();
+        assert stats.getAbsentCount() == 2;
+        assert stats.getNegativeHitCount() >= 5;
+
+        // 过期后重新填充，移除时清除
+        Thread.sleep(350);
+        assert c.get(1) == null;
+        assert calls.get() == 5;
+        c.removeData(1);
+        assert c.get(1) == null;
+        assert calls.get() == 6;
+        c.close();
+    }
+
+    // 批量获取遇到缓存的失败结果时不留下未完成的任务
+    @Test
+    public
+    void negativeBulk() throws Exception {
+        SMapCache<String, String> c = PDCache.SMapCache(String.class, String.class)
+                                             .createdata(k -> {
+                                                 if ("bad".equals(k))
+                                                     throw new IllegalStateException("down");
+                                                 return k;
+                                             })
+                                             .failureTime(60000)
+                                             .preloadBatch(8)
+                                             .build();
+        try {
+            c.get("bad");
+            assert false;
+        } catch ( IllegalStateException ignored ) {
+        }
+        try {
+            c.getAll(List.of("good", "bad"));
+            assert false;
+        } catch ( IllegalStateException ignored ) {
+        }
+        assert c.loading.isEmpty();
+        assert "good".equals(c.getAsync("good").get(5, TimeUnit.SECONDS));
+
+        // 预加载的批量路径
+        var p = c.preload(List.of("x", "y", "bad"));
+        assert p.getFailed() == 3;
+        assert c.loading.isEmpty();
+        assert "x".equals(c.getAsync("x").get(5, TimeUnit.SECONDS));
+        c.close();
+    }
+}
@@ -3,6 +3,7 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith( Suite.class )
-@Suite.SuiteClasses( {SCacheTest.class, SMapCacheTest.class} )
+@Suite.SuiteClasses( {SCacheTest.class, SMapCacheTest.class, SLongMapCacheTest.class,
+                       LockMapCacheTest.class} )
 public
 class memoryTest {}